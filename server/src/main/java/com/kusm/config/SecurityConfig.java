@@ -47,6 +47,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/users/verify-otp").permitAll()
                 .requestMatchers("/api/users/resend-otp").permitAll()
                 // Protected endpoints
+                .requestMatchers("/api/reservations/export").hasRole("ADMIN")
                 .requestMatchers("/api/users/profile/**").authenticated()
                 .requestMatchers("/api/users/logout").authenticated()
                 .anyRequest().authenticated()
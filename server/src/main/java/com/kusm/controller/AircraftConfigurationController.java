@@ -0,0 +1,75 @@
+package com.kusm.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kusm.model.AircraftConfiguration;
+import com.kusm.service.CabinLayout;
+import com.kusm.service.CabinLayoutService;
+
+@RestController
+@RequestMapping("/api/aircraft-configurations")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AircraftConfigurationController {
+
+    @Autowired
+    private CabinLayoutService cabinLayoutService;
+
+    @GetMapping
+    public List<AircraftConfiguration> getAllConfigurations() {
+        return cabinLayoutService.getAllConfigurations();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AircraftConfiguration> getConfiguration(@PathVariable Long id) {
+        return cabinLayoutService.getConfiguration(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Parsed layout of a configuration, as used for seat generation
+     */
+    @GetMapping("/{id}/layout")
+    public ResponseEntity<CabinLayout> getLayout(@PathVariable Long id) {
+        return cabinLayoutService.getLayout(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createConfiguration(@RequestBody AircraftConfiguration configuration) {
+        try {
+            configuration.setId(null);
+            return ResponseEntity.ok(cabinLayoutService.saveConfiguration(configuration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid aircraft configuration: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update a configuration. Only flights created afterwards use the new layout.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateConfiguration(@PathVariable Long id, @RequestBody AircraftConfiguration configuration) {
+        if (cabinLayoutService.getConfiguration(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            configuration.setId(id);
+            return ResponseEntity.ok(cabinLayoutService.saveConfiguration(configuration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid aircraft configuration: " + e.getMessage());
+        }
+    }
+}
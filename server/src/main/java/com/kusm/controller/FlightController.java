@@ -6,6 +6,10 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,9 +19,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.kusm.model.Flight;
+import com.kusm.service.DataExportService;
 import com.kusm.service.FlightService;
+import com.kusm.service.FlightService.FlightPage;
 
 @RestController
 @RequestMapping("/api/flights")
@@ -27,9 +35,60 @@ public class FlightController {
     @Autowired
     private FlightService flightService;
     
+    @Autowired
+    private DataExportService dataExportService;
+    
+    /**
+     * Flights in departure order as a plain JSON array, as existing clients expect, but never more than
+     * one page of them. When more follow, the Link header (rel="next") carries the URL of the next page.
+     */
     @GetMapping
-    public List<Flight> getAllFlights() {
-        return flightService.getAllFlights();
+    public ResponseEntity<?> getAllFlights(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            FlightPage page = flightService.listFlights(null, null, null, null, cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.isHasMore()) {
+                String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("cursor", page.getNextCursor())
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.getFlights());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error listing flights: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * List flights in departure order one page at a time. Filters are optional; the response carries
+     * the cursor of the next page, which is passed back as the cursor parameter.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getFlightPage(
+            @RequestParam(required = false) String airline,
+            @RequestParam(required = false) String origin,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            FlightPage page = flightService.listFlights(airline, origin, from, to, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error listing flights: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stream flights as newline-delimited JSON in id order, up to booking.export.max-rows per response and
+     * followed by a summary line; afterId continues after the last id received
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFlights(@RequestParam(required = false) Long afterId) {
+        StreamingResponseBody body = out -> dataExportService.exportFlights(afterId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     
     @GetMapping("/{id}")
@@ -47,18 +106,46 @@ public class FlightController {
         return flightService.searchFlights(origin, destination, departureDate);
     }
     
+    /**
+     * Origins starting with the prefix, most used first. Without a prefix or limit all origins are returned.
+     */
     @GetMapping("/origins")
-    public List<String> getAllOrigins() {
-        return flightService.getAllOrigins();
+    public ResponseEntity<?> getAllOrigins(@RequestParam(required = false) String prefix,
+                                           @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(flightService.getAllOrigins(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error listing origins: " + e.getMessage());
+        }
     }
     
+    /**
+     * Destinations starting with the prefix, most used first. Without a prefix or limit all destinations
+     * are returned.
+     */
     @GetMapping("/destinations")
-    public List<String> getAllDestinations() {
-        return flightService.getAllDestinations();
+    public ResponseEntity<?> getAllDestinations(@RequestParam(required = false) String prefix,
+                                                @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(flightService.getAllDestinations(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error listing destinations: " + e.getMessage());
+        }
     }
     
+    /**
+     * Create a flight, or update one; updates must send the version they read and get 409 when the
+     * flight has changed since
+     */
     @PostMapping
-    public Flight createFlight(@RequestBody Flight flight) {
-        return flightService.saveFlight(flight);
+    public ResponseEntity<?> createFlight(@RequestBody Flight flight) {
+        try {
+            return ResponseEntity.ok(flightService.saveFlight(flight));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Flight " + flight.getId() + " was changed by someone else, reload it and try again");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error saving flight: " + e.getMessage());
+        }
     }
 }
@@ -5,6 +5,9 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,12 +15,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.exceptions.BookingBusyException;
+import com.kusm.exceptions.BookingConflictException;
 import com.kusm.model.Reservation;
 import com.kusm.model.Seat;
+import com.kusm.service.BookingPipeline;
+import com.kusm.service.BookingPipeline.ShardStatistics;
+import com.kusm.service.BookingRetryPolicy;
+import com.kusm.service.BookingRetryPolicy.RetryStatistics;
+import com.kusm.service.DataExportService;
 import com.kusm.service.ReservationService;
+import com.kusm.service.SeatInventory.SeatMapSnapshot;
+import com.kusm.service.SeatService;
 
 @RestController
 @RequestMapping("/api/reservations")
@@ -29,6 +45,15 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private BookingRetryPolicy bookingRetryPolicy;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private DataExportService dataExportService;
+
     @PostMapping("/flight/{flightId}/with-payment")
     public ResponseEntity<?> createReservationWithPayment(
             @RequestBody ReservationRequest request,
@@ -51,21 +76,18 @@ public class ReservationController {
                     .body("Error: Passenger information is required");
             }
             
-            // Create reservation object
-            Reservation reservation = new Reservation();
-            reservation.setPassengerName(request.getPassengerName());
-            reservation.setPassengerEmail(request.getPassengerEmail());
-            reservation.setPassengerPhone(request.getPassengerPhone());
-            reservation.setPreferredSeatClass(request.getPreferredSeatClass() != null 
-                ? request.getPreferredSeatClass() : Seat.SeatClass.ECONOMY);
-            
-            // Process reservation with payment
-            Reservation savedReservation = reservationService.createReservationWithPayment(
-                reservation, flightId, request.getCardNumber(), request.getCardHolderName());
+            // Process reservation with payment; every retried attempt books a new reservation object
+            Reservation savedReservation = bookingPipeline.execute(flightId, "createReservationWithPayment", () ->
+                reservationService.createReservationWithPayment(
+                    newReservation(request), flightId, request.getCardNumber(), request.getCardHolderName()));
                 
             logger.info("Reservation created successfully: {}", savedReservation.getBookingReference());
             return ResponseEntity.ok(savedReservation);
             
+        } catch (BookingConflictException e) {
+            return conflict(e);
+        } catch (BookingBusyException e) {
+            return busy(e);
         } catch (RuntimeException e) {
             logger.error("Failed to create reservation with payment: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -96,21 +118,19 @@ public class ReservationController {
                     .body("Error: Passenger information is required");
             }
             
-            // Create reservation object
-            Reservation reservation = new Reservation();
-            reservation.setPassengerName(request.getPassengerName());
-            reservation.setPassengerEmail(request.getPassengerEmail());
-            reservation.setPassengerPhone(request.getPassengerPhone());
-            reservation.setPreferredSeatClass(request.getPreferredSeatClass() != null 
-                ? request.getPreferredSeatClass() : Seat.SeatClass.ECONOMY);
-            
             // Process reservation with specific seat and payment
-            Reservation savedReservation = reservationService.createReservationWithSpecificSeat(
-                reservation, flightId, seatNumber, request.getCardNumber(), request.getCardHolderName());
+            Reservation savedReservation = bookingPipeline.execute(flightId, "createReservationWithSpecificSeat", () ->
+                reservationService.createReservationWithSpecificSeat(
+                    newReservation(request), flightId, seatNumber, request.getHoldToken(),
+                    request.getCardNumber(), request.getCardHolderName()));
                 
             logger.info("Reservation created successfully with seat {}: {}", seatNumber, savedReservation.getBookingReference());
             return ResponseEntity.ok(savedReservation);
             
+        } catch (BookingConflictException e) {
+            return conflict(e);
+        } catch (BookingBusyException e) {
+            return busy(e);
         } catch (RuntimeException e) {
             logger.error("Failed to create reservation with specific seat and payment: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -118,6 +138,54 @@ public class ReservationController {
         }
     }
 
+    /**
+     * Book seats for a group on one reservation, seated together where possible
+     */
+    @PostMapping("/flight/{flightId}/with-payment/group")
+    public ResponseEntity<?> createGroupReservationWithPayment(
+            @RequestBody ReservationRequest request,
+            @PathVariable Long flightId) {
+        try {
+            logger.info("Creating group reservation of {} passengers for flight: {}", request.getGroupSize(), flightId);
+            
+            if (request.getCardNumber() == null || request.getCardNumber().trim().isEmpty() ||
+                request.getCardHolderName() == null || request.getCardHolderName().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body("Error: Payment information is required");
+            }
+            
+            if (request.getPassengerName() == null || request.getPassengerName().trim().isEmpty() ||
+                request.getPassengerEmail() == null || request.getPassengerEmail().trim().isEmpty() ||
+                request.getPassengerPhone() == null || request.getPassengerPhone().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body("Error: Passenger information is required");
+            }
+            
+            if (request.getGroupSize() == null || request.getGroupSize() < 1
+                    || request.getGroupSize() > SeatService.MAX_GROUP_SIZE) {
+                return ResponseEntity.badRequest()
+                    .body("Error: Group size must be between 1 and " + SeatService.MAX_GROUP_SIZE);
+            }
+            
+            Reservation savedReservation = bookingPipeline.execute(flightId, "createGroupReservationWithPayment", () ->
+                reservationService.createGroupReservationWithPayment(
+                    newReservation(request), flightId, request.getGroupSize(), request.isAllowSplit(),
+                    request.getCardNumber(), request.getCardHolderName()));
+                
+            logger.info("Group reservation created successfully: {}", savedReservation.getBookingReference());
+            return ResponseEntity.ok(savedReservation);
+            
+        } catch (BookingConflictException e) {
+            return conflict(e);
+        } catch (BookingBusyException e) {
+            return busy(e);
+        } catch (RuntimeException e) {
+            logger.error("Failed to create group reservation: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                .body("Error creating reservation: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/flight/{flightId}")
     public ResponseEntity<?> createReservationWithoutPayment(
             @RequestBody Reservation reservation,
@@ -132,6 +200,17 @@ public class ReservationController {
         }
     }
 
+    /**
+     * Stream reservations as newline-delimited JSON in id order, up to booking.export.max-rows per response and
+     * followed by a summary line; afterId continues after the last id received. The rows carry passenger
+     * contact details, so SecurityConfig restricts this to administrators.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservations(@RequestParam(required = false) Long afterId) {
+        StreamingResponseBody body = out -> dataExportService.exportReservations(afterId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<?> getReservationsByEmail(@PathVariable String email) {
         try {
@@ -172,7 +251,8 @@ public class ReservationController {
     @DeleteMapping("/cancel/{bookingReference}")
     public ResponseEntity<?> cancelReservation(@PathVariable String bookingReference) {
         try {
-            boolean cancelled = reservationService.cancelReservation(bookingReference);
+            boolean cancelled = bookingPipeline.executeForReservation(bookingReference, "cancelReservation", () ->
+                reservationService.cancelReservation(bookingReference));
             if (cancelled) {
                 logger.info("Reservation {} cancelled successfully", bookingReference);
                 return ResponseEntity.ok().build();
@@ -180,6 +260,10 @@ public class ReservationController {
                 logger.warn("Reservation {} not found for cancellation", bookingReference);
                 return ResponseEntity.notFound().build();
             }
+        } catch (BookingConflictException e) {
+            return conflict(e);
+        } catch (BookingBusyException e) {
+            return busy(e);
         } catch (Exception e) {
             logger.error("Error cancelling reservation {}: {}", bookingReference, e.getMessage());
             return ResponseEntity.badRequest()
@@ -189,9 +273,11 @@ public class ReservationController {
 
     @PostMapping("/change-seat/{bookingReference}/{newSeatNumber}")
     public ResponseEntity<?> changeSeat(@PathVariable String bookingReference, 
-            @PathVariable String newSeatNumber) {
+            @PathVariable String newSeatNumber,
+            @RequestParam(required = false) String currentSeatNumber) {
         try {
-            boolean changed = reservationService.changeSeat(bookingReference, newSeatNumber);
+            boolean changed = bookingPipeline.executeForReservation(bookingReference, "changeSeat", () ->
+                reservationService.changeSeat(bookingReference, currentSeatNumber, newSeatNumber));
             if (changed) {
                 logger.info("Seat changed successfully for reservation {} to seat {}", 
                     bookingReference, newSeatNumber);
@@ -200,6 +286,10 @@ public class ReservationController {
                 logger.warn("Failed to change seat for reservation {}", bookingReference);
                 return ResponseEntity.badRequest().body("Failed to change seat");
             }
+        } catch (BookingConflictException e) {
+            return conflict(e);
+        } catch (BookingBusyException e) {
+            return busy(e);
         } catch (Exception e) {
             logger.error("Error changing seat for reservation {}: {}", bookingReference, e.getMessage());
             return ResponseEntity.badRequest()
@@ -210,7 +300,7 @@ public class ReservationController {
     @GetMapping("/flight/{flightId}/available-seats")
     public ResponseEntity<?> getAvailableSeats(@PathVariable Long flightId) {
         try {
-            List<Seat> availableSeats = reservationService.getAvailableSeatsForFlight(flightId);
+            List<SeatDTO> availableSeats = reservationService.getAvailableSeatsForFlight(flightId);
             return ResponseEntity.ok(availableSeats);
         } catch (Exception e) {
             logger.error("Error fetching available seats for flight {}: {}", flightId, e.getMessage());
@@ -220,10 +310,14 @@ public class ReservationController {
     }
 
     @GetMapping("/flight/{flightId}/seat-map")
-    public ResponseEntity<?> getSeatMap(@PathVariable Long flightId) {
+    public ResponseEntity<?> getSeatMap(@PathVariable Long flightId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<List<Seat>> seatMap = reservationService.getSeatMapForFlight(flightId);
-            return ResponseEntity.ok(seatMap);
+            SeatMapSnapshot seatMap = reservationService.getSeatMapSnapshotForFlight(flightId);
+            if (seatMap.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(seatMap.getETag()).build();
+            }
+            return ResponseEntity.ok().eTag(seatMap.getETag()).body(seatMap.getRows());
         } catch (Exception e) {
             logger.error("Error fetching seat map for flight {}: {}", flightId, e.getMessage());
             return ResponseEntity.badRequest()
@@ -231,6 +325,44 @@ public class ReservationController {
         }
     }
 
+    /**
+     * Booking retry counters and conflict rates per operation
+     */
+    @GetMapping("/retries/statistics")
+    public ResponseEntity<List<RetryStatistics>> getRetryStatistics() {
+        return ResponseEntity.ok(bookingRetryPolicy.getStatistics());
+    }
+
+    /**
+     * Booking pipeline queue depth and batching per shard (empty when the pipeline is disabled)
+     */
+    @GetMapping("/pipeline/statistics")
+    public ResponseEntity<List<ShardStatistics>> getPipelineStatistics() {
+        return ResponseEntity.ok(bookingPipeline.getStatistics());
+    }
+
+    private Reservation newReservation(ReservationRequest request) {
+        Reservation reservation = new Reservation();
+        reservation.setPassengerName(request.getPassengerName());
+        reservation.setPassengerEmail(request.getPassengerEmail());
+        reservation.setPassengerPhone(request.getPassengerPhone());
+        reservation.setPreferredSeatClass(request.getPreferredSeatClass() != null 
+            ? request.getPreferredSeatClass() : Seat.SeatClass.ECONOMY);
+        return reservation;
+    }
+
+    private ResponseEntity<String> conflict(BookingConflictException e) {
+        logger.warn("Booking conflict: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
+    }
+
+    private ResponseEntity<String> busy(BookingBusyException e) {
+        logger.warn("Booking rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body("Error: " + e.getMessage());
+    }
+
     // Request DTO for reservation with payment
     public static class ReservationRequest {
         private String passengerName;
@@ -239,6 +371,10 @@ public class ReservationController {
         private Seat.SeatClass preferredSeatClass;
         private String cardNumber;
         private String cardHolderName;
+        private String holdToken;
+        // Group bookings only
+        private Integer groupSize;
+        private boolean allowSplit;
 
         // Constructors
         public ReservationRequest() {}
@@ -272,6 +408,15 @@ public class ReservationController {
         public String getCardHolderName() { return cardHolderName; }
         public void setCardHolderName(String cardHolderName) { this.cardHolderName = cardHolderName; }
 
+        public String getHoldToken() { return holdToken; }
+        public void setHoldToken(String holdToken) { this.holdToken = holdToken; }
+
+        public Integer getGroupSize() { return groupSize; }
+        public void setGroupSize(Integer groupSize) { this.groupSize = groupSize; }
+
+        public boolean isAllowSplit() { return allowSplit; }
+        public void setAllowSplit(boolean allowSplit) { this.allowSplit = allowSplit; }
+
         @Override
         public String toString() {
             return "ReservationRequest{" +
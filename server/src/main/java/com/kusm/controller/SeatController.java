@@ -1,21 +1,50 @@
 package com.kusm.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.kusm.model.Seat;
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.dto.flightDTO.SeatSelection;
+import com.kusm.exceptions.BookingBusyException;
+import com.kusm.exceptions.BookingConflictException;
 import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.model.SeatTransition;
+import com.kusm.service.BookingPipeline;
+import com.kusm.service.CabinLayout;
+import com.kusm.service.FlightLockManager;
+import com.kusm.service.FlightLockManager.StripeStatistics;
+import com.kusm.service.MappedSeatStore;
+import com.kusm.service.MappedSeatStore.MappedStoreStatistics;
 import com.kusm.service.ReservationService;
+import com.kusm.service.SeatCountReconciler;
+import com.kusm.service.SeatHoldService;
+import com.kusm.service.SeatHoldService.SeatHold;
+import com.kusm.service.SeatInventory.SeatMapSnapshot;
+import com.kusm.service.SeatJournal;
+import com.kusm.service.SeatMapStreamService;
 import com.kusm.service.SeatService;
+import com.kusm.service.SeatSnapshotService;
+import com.kusm.service.SeatSnapshotService.SnapshotStatistics;
 
 @RestController
 @RequestMapping("/api/seats")
@@ -27,13 +56,37 @@ public class SeatController {
     @Autowired
     private ReservationService reservationService;
     
+    @Autowired
+    private FlightLockManager flightLockManager;
+    
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private SeatMapStreamService seatMapStreamService;
+    
+    @Autowired
+    private SeatCountReconciler seatCountReconciler;
+    
+    @Autowired
+    private BookingPipeline bookingPipeline;
+    
+    @Autowired
+    private SeatJournal seatJournal;
+    
+    @Autowired
+    private SeatSnapshotService seatSnapshotService;
+
+    @Autowired
+    private MappedSeatStore mappedSeatStore;
+    
     /**
      * Get available seats for a flight
      */
     @GetMapping("/flight/{flightId}/available")
-    public ResponseEntity<List<Seat>> getAvailableSeats(@PathVariable Long flightId) {
+    public ResponseEntity<List<SeatDTO>> getAvailableSeats(@PathVariable Long flightId) {
         try {
-            List<Seat> availableSeats = seatService.getAvailableSeats(flightId);
+            List<SeatDTO> availableSeats = seatService.getAvailableSeats(flightId);
             return ResponseEntity.ok(availableSeats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -44,11 +97,11 @@ public class SeatController {
      * Get available seats by class
      */
     @GetMapping("/flight/{flightId}/available/{seatClass}")
-    public ResponseEntity<List<Seat>> getAvailableSeatsByClass(
+    public ResponseEntity<List<SeatDTO>> getAvailableSeatsByClass(
             @PathVariable Long flightId,
             @PathVariable SeatClass seatClass) {
         try {
-            List<Seat> availableSeats = seatService.getAvailableSeatsByClass(flightId, seatClass);
+            List<SeatDTO> availableSeats = seatService.getAvailableSeatsByClass(flightId, seatClass);
             return ResponseEntity.ok(availableSeats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -56,25 +109,52 @@ public class SeatController {
     }
     
     /**
-     * Get seat map for a flight
+     * Get seat map for a flight. Answers 304 when If-None-Match carries the current version's ETag.
      */
     @GetMapping("/flight/{flightId}/seatmap")
-    public ResponseEntity<List<List<Seat>>> getSeatMap(@PathVariable Long flightId) {
+    public ResponseEntity<List<List<SeatDTO>>> getSeatMap(@PathVariable Long flightId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<List<Seat>> seatMap = seatService.getSeatMap(flightId);
-            return ResponseEntity.ok(seatMap);
+            SeatMapSnapshot seatMap = seatService.getSeatMapSnapshot(flightId);
+            if (seatMap.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(seatMap.getETag()).build();
+            }
+            return ResponseEntity.ok().eTag(seatMap.getETag()).body(seatMap.getRows());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     /**
-     * Get all seats for a flight
+     * Stream the seat map of a flight: a snapshot, then one event per seat status change.
+     * Reconnecting clients resume from Last-Event-ID (or fromVersion).
+     */
+    @GetMapping(value = "/flight/{flightId}/seatmap/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatMap(@PathVariable Long flightId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) Long fromVersion) {
+        return seatMapStreamService.subscribe(flightId, lastEventId != null ? lastEventId : fromVersion);
+    }
+    
+    /**
+     * Get the cabin layout of a flight (classes, aisles, exit rows)
+     */
+    @GetMapping("/flight/{flightId}/layout")
+    public ResponseEntity<CabinLayout> getCabinLayout(@PathVariable Long flightId) {
+        try {
+            return ResponseEntity.ok(seatService.getCabinLayout(flightId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get all seats for a flight, with the booking reference of booked seats
      */
     @GetMapping("/flight/{flightId}")
-    public ResponseEntity<List<Seat>> getAllSeatsForFlight(@PathVariable Long flightId) {
+    public ResponseEntity<List<SeatDTO>> getAllSeatsForFlight(@PathVariable Long flightId) {
         try {
-            List<Seat> seats = seatService.getAllSeatsForFlight(flightId);
+            List<SeatDTO> seats = seatService.getAllSeatsForFlight(flightId);
             return ResponseEntity.ok(seats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -95,41 +175,200 @@ public class SeatController {
     }
     
     /**
-     * Change seat for a reservation
+     * Change seat for a reservation; group reservations name the seat to change with currentSeatNumber
      */
     @PutMapping("/reservation/{bookingReference}/change-seat")
     public ResponseEntity<String> changeSeat(
             @PathVariable String bookingReference,
+            @RequestParam(required = false) String currentSeatNumber,
             @RequestParam String newSeatNumber) {
         try {
-            boolean success = reservationService.changeSeat(bookingReference, newSeatNumber);
+            boolean success = bookingPipeline.executeForReservation(bookingReference, "changeSeat", () ->
+                    reservationService.changeSeat(bookingReference, currentSeatNumber, newSeatNumber));
             if (success) {
                 return ResponseEntity.ok("Seat changed successfully to " + newSeatNumber);
             } else {
                 return ResponseEntity.badRequest().body("Failed to change seat");
             }
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error changing seat: " + e.getMessage());
+        } catch (BookingBusyException e) {
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error changing seat: " + e.getMessage());
         }
     }
     
+    /**
+     * Block a range of seats (rows, letters, seat class or seat numbers) in one update.
+     * Only available seats are blocked; the response lists the outcome for every selected seat, and
+     * NOT_FOUND for seat numbers that match no seat of the selection.
+     */
+    @PostMapping("/flight/{flightId}/block")
+    public ResponseEntity<?> blockSeats(@PathVariable Long flightId, @RequestBody SeatSelection selection) {
+        try {
+            return ResponseEntity.ok(bookingPipeline.execute(flightId, "blockSeats", () ->
+                    seatService.blockSeats(flightId, selection)));
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error blocking seats: " + e.getMessage());
+        } catch (BookingBusyException e) {
+            return busy(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error blocking seats: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Unblock a range of seats; only blocked seats are changed
+     */
+    @PostMapping("/flight/{flightId}/unblock")
+    public ResponseEntity<?> unblockSeats(@PathVariable Long flightId, @RequestBody SeatSelection selection) {
+        try {
+            return ResponseEntity.ok(bookingPipeline.execute(flightId, "unblockSeats", () ->
+                    seatService.unblockSeats(flightId, selection)));
+        } catch (BookingBusyException e) {
+            return busy(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error unblocking seats: " + e.getMessage());
+        }
+    }
+    
     /**
      * Get seat statistics for a flight
      */
     @GetMapping("/flight/{flightId}/statistics")
     public ResponseEntity<SeatStatistics> getSeatStatistics(@PathVariable Long flightId) {
         try {
-            long availableSeats = seatService.getAvailableSeatCount(flightId);
-            long bookedSeats = seatService.getBookedSeatCount(flightId);
+            // One read of the flight's seat counters
+            SeatService.SeatStatistics counts = seatService.getSeatStatistics(flightId);
             
-            SeatStatistics stats = new SeatStatistics(availableSeats, bookedSeats, 
-                availableSeats + bookedSeats);
+            SeatStatistics stats = new SeatStatistics(counts.getAvailable(), counts.getBooked(), 
+                counts.getTotal());
+            stats.setBlockedSeats(counts.getBlocked());
+            stats.setHeldSeats(counts.getHeld());
+            stats.setByClass(counts.getByClass());
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    /**
+     * Compare the seat counters of all loaded flights with the seats table now and repair drifted ones
+     */
+    @PostMapping("/statistics/reconcile")
+    public ResponseEntity<String> reconcileSeatCounts() {
+        int repaired = seatCountReconciler.reconcile();
+        return ResponseEntity.ok("Repaired seat counters of " + repaired + " flight(s)");
+    }
+    
+    /**
+     * Hold a seat while the user completes payment
+     */
+    @PostMapping("/flight/{flightId}/seat/{seatNumber}/hold")
+    public ResponseEntity<?> holdSeat(
+            @PathVariable Long flightId,
+            @PathVariable String seatNumber,
+            @RequestParam(required = false) Long holdSeconds) {
+        try {
+            SeatHold hold = seatHoldService.holdSeat(flightId, seatNumber, holdSeconds);
+            return ResponseEntity.ok(hold);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error holding seat: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error holding seat: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Release a seat hold before it expires
+     */
+    @DeleteMapping("/flight/{flightId}/seat/{seatNumber}/hold")
+    public ResponseEntity<String> releaseHold(
+            @PathVariable Long flightId,
+            @PathVariable String seatNumber,
+            @RequestParam String holdToken) {
+        try {
+            if (seatHoldService.releaseHold(flightId, seatNumber, holdToken)) {
+                return ResponseEntity.ok("Hold released");
+            }
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error releasing hold: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get per-stripe contention statistics of the flight lock manager
+     */
+    @GetMapping("/locks/statistics")
+    public ResponseEntity<List<StripeStatistics>> getLockStatistics() {
+        return ResponseEntity.ok(flightLockManager.getStatistics());
+    }
+    
+    /**
+     * Seat statuses of a flight as they were at the given time, rebuilt from the seat journal
+     */
+    @GetMapping("/flight/{flightId}/history")
+    public ResponseEntity<Map<String, SeatStatus>> getSeatStatusesAt(@PathVariable Long flightId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return ResponseEntity.ok(seatJournal.statusesAt(flightId, at));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Journaled status changes of one seat, oldest first
+     */
+    @GetMapping("/flight/{flightId}/seat/{seatNumber}/history")
+    public ResponseEntity<List<SeatTransition>> getSeatHistory(@PathVariable Long flightId,
+            @PathVariable String seatNumber) {
+        try {
+            return ResponseEntity.ok(seatJournal.history(flightId, seatNumber.trim().toUpperCase()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Snapshot the seats of a flight now instead of waiting for the next scheduled snapshot
+     */
+    @PostMapping("/flight/{flightId}/snapshot")
+    public ResponseEntity<String> snapshotSeats(@PathVariable Long flightId) {
+        try {
+            if (seatSnapshotService.takeSnapshot(flightId)) {
+                return ResponseEntity.ok("Snapshot taken");
+            }
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error taking snapshot: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get seat journal, snapshot and startup replay statistics
+     */
+    @GetMapping("/journal/statistics")
+    public ResponseEntity<SnapshotStatistics> getJournalStatistics() {
+        return ResponseEntity.ok(seatSnapshotService.getStatistics());
+    }
+
+    /**
+     * Get memory-mapped inventory file statistics
+     */
+    @GetMapping("/inventory/mmap/statistics")
+    public ResponseEntity<MappedStoreStatistics> getMappedInventoryStatistics() {
+        return ResponseEntity.ok(mappedSeatStore.getStatistics());
+    }
+
+    private ResponseEntity<String> busy(BookingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
+    
     /**
      * Inner class for seat statistics
      */
@@ -137,6 +376,9 @@ public class SeatController {
         private long availableSeats;
         private long bookedSeats;
         private long totalSeats;
+        private long blockedSeats;
+        private long heldSeats;
+        private Map<SeatClass, SeatService.SeatStatistics> byClass;
         
         public SeatStatistics(long availableSeats, long bookedSeats, long totalSeats) {
             this.availableSeats = availableSeats;
@@ -148,10 +390,16 @@ public class SeatController {
         public long getAvailableSeats() { return availableSeats; }
         public long getBookedSeats() { return bookedSeats; }
         public long getTotalSeats() { return totalSeats; }
+        public long getBlockedSeats() { return blockedSeats; }
+        public long getHeldSeats() { return heldSeats; }
+        public Map<SeatClass, SeatService.SeatStatistics> getByClass() { return byClass; }
         
         // Setters
         public void setAvailableSeats(long availableSeats) { this.availableSeats = availableSeats; }
         public void setBookedSeats(long bookedSeats) { this.bookedSeats = bookedSeats; }
         public void setTotalSeats(long totalSeats) { this.totalSeats = totalSeats; }
+        public void setBlockedSeats(long blockedSeats) { this.blockedSeats = blockedSeats; }
+        public void setHeldSeats(long heldSeats) { this.heldSeats = heldSeats; }
+        public void setByClass(Map<SeatClass, SeatService.SeatStatistics> byClass) { this.byClass = byClass; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.kusm.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.model.WaitlistEntry;
+import com.kusm.service.WaitlistService;
+import com.kusm.service.WaitlistService.WaitlistStatistics;
+import com.kusm.service.WaitlistService.WaitlistView;
+
+@RestController
+@RequestMapping("/api/waitlist")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    /**
+     * Join the waitlist of a sold-out cabin class
+     */
+    @PostMapping("/flight/{flightId}")
+    public ResponseEntity<?> joinWaitlist(@PathVariable Long flightId, @RequestBody WaitlistRequest request) {
+        try {
+            WaitlistEntry entry = waitlistService.join(flightId, request.getSeatClass(), request.getPassengerName(),
+                    request.getPassengerEmail(), request.getPassengerPhone());
+            return ResponseEntity.ok(waitlistService.getEntry(entry.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error joining waitlist: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the waiting passengers of a flight in queue order
+     */
+    @GetMapping("/flight/{flightId}")
+    public ResponseEntity<List<WaitlistView>> getWaitlist(@PathVariable Long flightId) {
+        try {
+            return ResponseEntity.ok(waitlistService.getWaitlist(flightId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get a waitlist entry with its queue position, or the booking reference once promoted
+     */
+    @GetMapping("/{entryId}")
+    public ResponseEntity<WaitlistView> getEntry(@PathVariable Long entryId) {
+        try {
+            return ResponseEntity.ok(waitlistService.getEntry(entryId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Pay for a promoted entry's reservation before its payment window closes
+     */
+    @PostMapping("/{entryId}/confirm")
+    public ResponseEntity<?> confirmPromotion(@PathVariable Long entryId, @RequestBody PaymentDetails payment) {
+        try {
+            Reservation reservation = waitlistService.confirmPromotion(entryId, payment.getCardNumber(),
+                    payment.getCardHolderName());
+            return ResponseEntity.ok(Map.of("message", "Reservation confirmed",
+                    "bookingReference", reservation.getBookingReference()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error confirming reservation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Leave the waitlist
+     */
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable Long entryId) {
+        try {
+            if (waitlistService.leave(entryId)) {
+                return ResponseEntity.ok(Map.of("message", "Left the waitlist"));
+            }
+            return ResponseEntity.badRequest().body("Waitlist entry is no longer waiting");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error leaving waitlist: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get waitlist promotion statistics
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<WaitlistStatistics> getStatistics() {
+        return ResponseEntity.ok(waitlistService.getStatistics());
+    }
+
+    // Request DTO
+    public static class WaitlistRequest {
+        private String passengerName;
+        private String passengerEmail;
+        private String passengerPhone;
+        private Seat.SeatClass seatClass;
+
+        public WaitlistRequest() {}
+
+        public String getPassengerName() { return passengerName; }
+        public void setPassengerName(String passengerName) { this.passengerName = passengerName; }
+
+        public String getPassengerEmail() { return passengerEmail; }
+        public void setPassengerEmail(String passengerEmail) { this.passengerEmail = passengerEmail; }
+
+        public String getPassengerPhone() { return passengerPhone; }
+        public void setPassengerPhone(String passengerPhone) { this.passengerPhone = passengerPhone; }
+
+        public Seat.SeatClass getSeatClass() { return seatClass; }
+        public void setSeatClass(Seat.SeatClass seatClass) { this.seatClass = seatClass; }
+    }
+
+    public static class PaymentDetails {
+        private String cardNumber;
+        private String cardHolderName;
+
+        public PaymentDetails() {}
+
+        public String getCardNumber() { return cardNumber; }
+        public void setCardNumber(String cardNumber) { this.cardNumber = cardNumber; }
+
+        public String getCardHolderName() { return cardHolderName; }
+        public void setCardHolderName(String cardHolderName) { this.cardHolderName = cardHolderName; }
+    }
+}
@@ -1,27 +1,28 @@
 package com.kusm.dto.flightDTO;
 
 import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatPosition;
+import com.kusm.model.Seat.SeatStatus;
 
 public class SeatDTO {
     private Long id;
     private String seatNumber;
     private String seatClass;
     private String status;
+    private Integer rowNumber;
+    private String columnCode;
+    private boolean exitRow;
     private boolean isWindow;
     private boolean isAisle;
     private boolean isMiddle;
     private String reservationReference;
     private String passengerName;
     
-    // Constructor from Seat entity
+    // Constructor from Seat entity; reads the reservation, so only use it on loaded or detached seats
     public SeatDTO(Seat seat) {
-        this.id = seat.getId();
-        this.seatNumber = seat.getSeatNumber();
-        this.seatClass = seat.getSeatClass().name();
-        this.status = seat.getStatus().name();
-        this.isWindow = seat.isWindow();
-        this.isAisle = seat.isAisle();
-        this.isMiddle = seat.isMiddle();
+        this(seat.getId(), seat.getSeatNumber(), seat.getSeatClass(), seat.getStatus(), seat.getRowNumber(),
+                seat.getColumnCode(), seat.getPosition(), seat.isExitRow(), null);
         
         if (seat.getReservation() != null) {
             this.reservationReference = seat.getReservation().getBookingReference();
@@ -29,6 +30,23 @@ public class SeatDTO {
         }
     }
     
+    // Constructor used by the JPQL projections in SeatRepository and by the in-memory seat inventory
+    public SeatDTO(Long id, String seatNumber, SeatClass seatClass, SeatStatus status, Integer rowNumber,
+                   String columnCode, SeatPosition position, boolean exitRow, String reservationReference) {
+        SeatPosition effectivePosition = Seat.effectivePosition(position, seatNumber);
+        this.id = id;
+        this.seatNumber = seatNumber;
+        this.seatClass = seatClass != null ? seatClass.name() : null;
+        this.status = status != null ? status.name() : null;
+        this.rowNumber = rowNumber;
+        this.columnCode = columnCode;
+        this.exitRow = exitRow;
+        this.isWindow = effectivePosition == SeatPosition.WINDOW;
+        this.isAisle = effectivePosition == SeatPosition.AISLE;
+        this.isMiddle = effectivePosition == SeatPosition.MIDDLE;
+        this.reservationReference = reservationReference;
+    }
+    
     // Default constructor
     public SeatDTO() {}
     
@@ -45,6 +63,15 @@ public class SeatDTO {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     
+    public Integer getRowNumber() { return rowNumber; }
+    public void setRowNumber(Integer rowNumber) { this.rowNumber = rowNumber; }
+    
+    public String getColumnCode() { return columnCode; }
+    public void setColumnCode(String columnCode) { this.columnCode = columnCode; }
+    
+    public boolean isExitRow() { return exitRow; }
+    public void setExitRow(boolean exitRow) { this.exitRow = exitRow; }
+    
     public boolean isWindow() { return isWindow; }
     public void setWindow(boolean window) { isWindow = window; }
     
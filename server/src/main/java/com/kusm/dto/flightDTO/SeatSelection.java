@@ -0,0 +1,53 @@
+package com.kusm.dto.flightDTO;
+
+import java.util.List;
+
+import com.kusm.model.Seat.SeatClass;
+
+/**
+ * Seats of one flight picked by row range, letter range, cabin class and/or explicit seat numbers.
+ * All given criteria must match; unset criteria match every seat.
+ */
+public class SeatSelection {
+    private Integer fromRow;
+    private Integer toRow;
+    private String fromLetter;
+    private String toLetter;
+    private SeatClass seatClass;
+    private List<String> seatNumbers;
+
+    public SeatSelection() {}
+
+    public SeatSelection(Integer fromRow, Integer toRow, String fromLetter, String toLetter) {
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.fromLetter = fromLetter;
+        this.toLetter = toLetter;
+    }
+
+    public Integer getFromRow() { return fromRow; }
+    public void setFromRow(Integer fromRow) { this.fromRow = fromRow; }
+
+    public Integer getToRow() { return toRow; }
+    public void setToRow(Integer toRow) { this.toRow = toRow; }
+
+    public String getFromLetter() { return fromLetter; }
+    public void setFromLetter(String fromLetter) { this.fromLetter = fromLetter; }
+
+    public String getToLetter() { return toLetter; }
+    public void setToLetter(String toLetter) { this.toLetter = toLetter; }
+
+    public SeatClass getSeatClass() { return seatClass; }
+    public void setSeatClass(SeatClass seatClass) { this.seatClass = seatClass; }
+
+    public List<String> getSeatNumbers() { return seatNumbers; }
+    public void setSeatNumbers(List<String> seatNumbers) { this.seatNumbers = seatNumbers; }
+
+    /**
+     * Whether no criterion is set, which would select the whole aircraft
+     */
+    public boolean isEmpty() {
+        return fromRow == null && toRow == null && fromLetter == null && toLetter == null
+                && seatClass == null && (seatNumbers == null || seatNumbers.isEmpty());
+    }
+}
@@ -0,0 +1,18 @@
+package com.kusm.exceptions;
+
+/**
+ * The booking write path is saturated and did not take the request; the client should retry after the
+ * given delay
+ */
+public class BookingBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public BookingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
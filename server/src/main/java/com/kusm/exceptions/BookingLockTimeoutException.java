@@ -0,0 +1,7 @@
+package com.kusm.exceptions;
+
+public class BookingLockTimeoutException extends RuntimeException {
+    public BookingLockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
@@ -12,6 +13,7 @@ import io.github.cdimascio.dotenv.Dotenv;
 @ComponentScan(basePackages = "com.kusm")
 @EnableJpaRepositories(basePackages = "com.kusm.repository")
 @EntityScan(basePackages = "com.kusm.model")
+@EnableScheduling
 public class KusmApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,65 @@
+package com.kusm.model;
+
+import java.sql.Timestamp;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cabin layout of an aircraft type, shared by every flight operated with it.
+ *
+ * seatLetters:  seat letters per row, '-' marks an aisle (e.g. "ABC-DEF")
+ * cabinClasses: row ranges per class with an optional letter override,
+ *               e.g. "FIRST:1-2:AC-DF,BUSINESS:3-6:AC-DF,ECONOMY:7-30"
+ * exitRows:     comma separated rows (e.g. "12,13")
+ * blockedSeats: seats that exist but are never sold (e.g. "30B,30E")
+ */
+@Entity
+@Table(name = "aircraft_configurations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AircraftConfiguration {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Column(unique = true, nullable = false, length = 50)
+    private String code;
+
+    @Column(length = 100)
+    private String name;
+
+    @Min(1)
+    @Column(nullable = false)
+    private Integer rowCount;
+
+    @NotBlank
+    @Column(nullable = false, length = 20)
+    private String seatLetters;
+
+    @Column(length = 500)
+    private String cabinClasses;
+
+    @Column(length = 200)
+    private String exitRows;
+
+    @Column(length = 500)
+    private String blockedSeats;
+
+    @UpdateTimestamp
+    private Timestamp updatedAt;
+}
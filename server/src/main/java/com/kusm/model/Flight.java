@@ -6,12 +6,21 @@ import java.time.LocalDateTime;
 
 import org.hibernate.annotations.UpdateTimestamp;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -21,7 +30,11 @@ import lombok.Setter;
 
 @Entity
 @Getter @Setter
-@Table(name = "flights")
+// The route/date search index includes available_seats, which @Index cannot express: see schema-postgresql.sql
+@Table(name = "flights", indexes = {
+    // Keyset order of the flight listing
+    @Index(name = "idx_flights_departure_id", columnList = "departure_time, id")
+})
 public class Flight {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -56,6 +69,28 @@ public class Flight {
     @Min(1)
     private Integer totalSeats;
 
+    // Set once the seat rows of this flight have been created
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "seats_initialized", nullable = false, columnDefinition = "boolean not null default false")
+    private boolean seatsInitialized;
+
+    // Cabin layout template; flights without one get the default 6-abreast layout
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "aircraft_configuration_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private AircraftConfiguration aircraftConfiguration;
+
+    // Optimistic lock; clients send back the version they read when updating a flight
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
+    // Seat inventory version, bumped by SeatJournal for every committed seat change (never written by JPA)
+    @JsonIgnore
+    @Column(name = "inventory_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint not null default 0")
+    private long inventoryVersion;
+
     @UpdateTimestamp
     private Timestamp createdAt;
     @UpdateTimestamp
@@ -109,4 +144,15 @@ public class Flight {
     
     public Integer getTotalSeats() { return totalSeats; }
     public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
+    
+    public boolean isSeatsInitialized() { return seatsInitialized; }
+    public void setSeatsInitialized(boolean seatsInitialized) { this.seatsInitialized = seatsInitialized; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public long getInventoryVersion() { return inventoryVersion; }
+    
+    public AircraftConfiguration getAircraftConfiguration() { return aircraftConfiguration; }
+    public void setAircraftConfiguration(AircraftConfiguration aircraftConfiguration) { this.aircraftConfiguration = aircraftConfiguration; }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.kusm.model;
 
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -14,16 +17,20 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "seats", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"flight_id", "seat_number"})
+}, indexes = {
+    @Index(name = "idx_seats_flight_row_column", columnList = "flight_id, seat_row, seat_column")
 })
 public class Seat {
 
@@ -48,6 +55,11 @@ public class Seat {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "flight_id")
     private Flight flight;
+
+    // Optimistic lock; the bulk status updates in SeatRepository bump it as well
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
         @UpdateTimestamp
     private Timestamp createdAt;
 
@@ -58,12 +70,39 @@ public class Seat {
     @JoinColumn(name = "reservation_id")
     private Reservation reservation;
 
+    // Temporary hold, only set while status is HELD
+    @JsonIgnore
+    @Column(name = "hold_token")
+    private String holdToken;
+
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    // Row number and column letter(s) of the seat number, so seat maps can be ordered without parsing it
+    @Column(name = "seat_row")
+    private Integer rowNumber;
+
+    @Column(name = "seat_column", length = 3)
+    private String columnCode;
+
+    // Position and exit row come from the aircraft cabin layout; null position on seats created before layouts
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_position", length = 10)
+    private SeatPosition position;
+
+    @Column(name = "exit_row", nullable = false, columnDefinition = "boolean not null default false")
+    private boolean exitRow;
+
     public enum SeatClass {
         ECONOMY, PREMIUM_ECONOMY, BUSINESS, FIRST
     }
 
     public enum SeatStatus {
-        AVAILABLE, BOOKED, BLOCKED
+        AVAILABLE, BOOKED, BLOCKED, HELD
+    }
+
+    public enum SeatPosition {
+        WINDOW, MIDDLE, AISLE
     }
 
     // Constructors
@@ -119,6 +158,14 @@ public class Seat {
         this.flight = flight;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Reservation getReservation() {
         return reservation;
     }
@@ -127,20 +174,90 @@ public class Seat {
         this.reservation = reservation;
     }
 
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public Integer getRowNumber() {
+        return rowNumber;
+    }
+
+    public void setRowNumber(Integer rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    public String getColumnCode() {
+        return columnCode;
+    }
+
+    public void setColumnCode(String columnCode) {
+        this.columnCode = columnCode;
+    }
+
+    public SeatPosition getPosition() {
+        return position;
+    }
+
+    public void setPosition(SeatPosition position) {
+        this.position = position;
+    }
+
+    public boolean isExitRow() {
+        return exitRow;
+    }
+
+    public void setExitRow(boolean exitRow) {
+        this.exitRow = exitRow;
+    }
+
     // Utility methods
     public boolean isAvailable() {
         return this.status == SeatStatus.AVAILABLE;
     }
 
     public boolean isWindow() {
-        return seatNumber.endsWith("A") || seatNumber.endsWith("F");
+        return effectivePosition(position, seatNumber) == SeatPosition.WINDOW;
     }
 
     public boolean isAisle() {
-        return seatNumber.endsWith("C") || seatNumber.endsWith("D");
+        return effectivePosition(position, seatNumber) == SeatPosition.AISLE;
     }
 
     public boolean isMiddle() {
-        return seatNumber.endsWith("B") || seatNumber.endsWith("E");
+        return effectivePosition(position, seatNumber) == SeatPosition.MIDDLE;
+    }
+
+    /**
+     * Position from the cabin layout, or derived from the seat letter for seats created before layouts
+     */
+    public static SeatPosition effectivePosition(SeatPosition position, String seatNumber) {
+        if (position != null) {
+            return position;
+        }
+        if (seatNumber == null) {
+            return null;
+        }
+        if (seatNumber.endsWith("A") || seatNumber.endsWith("F")) {
+            return SeatPosition.WINDOW;
+        }
+        if (seatNumber.endsWith("C") || seatNumber.endsWith("D")) {
+            return SeatPosition.AISLE;
+        }
+        if (seatNumber.endsWith("B") || seatNumber.endsWith("E")) {
+            return SeatPosition.MIDDLE;
+        }
+        return null;
     }
 }
\ No newline at end of file
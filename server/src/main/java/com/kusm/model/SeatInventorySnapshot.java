@@ -0,0 +1,68 @@
+package com.kusm.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * All seats of a flight as of one database snapshot, encoded by SeatSnapshotService. Journal entries
+ * written by transactions at or above txHorizon may be missing from it and are replayed on top.
+ */
+@Entity
+@Table(name = "seat_inventory_snapshots", indexes = {
+    @Index(name = "idx_seat_snapshots_flight_id", columnList = "flight_id, id")
+})
+public class SeatInventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flight_id", nullable = false)
+    private Long flightId;
+
+    // Lowest transaction id still running when the snapshot was read
+    @Column(name = "tx_horizon", nullable = false)
+    private Long txHorizon;
+
+    // Highest journal entry of the flight visible to the snapshot
+    @Column(name = "journal_seq", nullable = false)
+    private Long journalSeq;
+
+    @Column(name = "seat_count", nullable = false)
+    private int seatCount;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getFlightId() { return flightId; }
+    public void setFlightId(Long flightId) { this.flightId = flightId; }
+
+    public Long getTxHorizon() { return txHorizon; }
+    public void setTxHorizon(Long txHorizon) { this.txHorizon = txHorizon; }
+
+    public Long getJournalSeq() { return journalSeq; }
+    public void setJournalSeq(Long journalSeq) { this.journalSeq = journalSeq; }
+
+    public int getSeatCount() { return seatCount; }
+    public void setSeatCount(int seatCount) { this.seatCount = seatCount; }
+
+    public LocalDateTime getTakenAt() { return takenAt; }
+    public void setTakenAt(LocalDateTime takenAt) { this.takenAt = takenAt; }
+
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+}
@@ -0,0 +1,75 @@
+package com.kusm.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One entry of the append-only seat journal. Rows are only ever inserted (by SeatJournal, over JDBC);
+ * fromStatus is null for the entry written when the seat was created.
+ */
+@Entity
+@Immutable
+@Table(name = "seat_journal", indexes = {
+    @Index(name = "idx_seat_journal_flight_id", columnList = "flight_id, id"),
+    @Index(name = "idx_seat_journal_flight_tx", columnList = "flight_id, tx_id")
+})
+public class SeatTransition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flight_id", nullable = false)
+    private Long flightId;
+
+    @Column(name = "seat_number", nullable = false)
+    private String seatNumber;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "from_status")
+    private Seat.SeatStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "to_status", nullable = false)
+    private Seat.SeatStatus toStatus;
+
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    // flights.inventory_version written by the same transaction
+    @Column(name = "inventory_version")
+    private Long inventoryVersion;
+
+    // Id of the database transaction that wrote the entry, compared with snapshot horizons on replay
+    @Column(name = "tx_id", nullable = false)
+    private Long txId;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getFlightId() { return flightId; }
+    public String getSeatNumber() { return seatNumber; }
+    public Seat.SeatStatus getFromStatus() { return fromStatus; }
+    public Seat.SeatStatus getToStatus() { return toStatus; }
+    public Long getReservationId() { return reservationId; }
+    public Long getInventoryVersion() { return inventoryVersion; }
+    public Long getTxId() { return txId; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+}
@@ -0,0 +1,16 @@
+package com.kusm.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.kusm.model.AircraftConfiguration;
+
+@Repository
+public interface AircraftConfigurationRepository extends JpaRepository<AircraftConfiguration, Long> {
+
+    Optional<AircraftConfiguration> findByCode(String code);
+
+    boolean existsByCode(String code);
+}
@@ -0,0 +1,70 @@
+package com.kusm.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.stereotype.Repository;
+
+import com.kusm.model.Flight;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Keyset pages of the flights table in (departure_time, id) order. Each page continues strictly after
+ * the last flight of the previous one, so the query reads one page from idx_flights_departure_id
+ * however deep the listing goes; only the given filters are added to the statement.
+ */
+@Repository
+public class FlightPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Up to limit flights after (afterDeparture, afterId), or from the start when afterDeparture is null.
+     * Departures are filtered to [from, to) when given.
+     */
+    public List<Flight> findPage(String airline, String origin, LocalDateTime from, LocalDateTime to,
+                                 LocalDateTime afterDeparture, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT f FROM Flight f LEFT JOIN FETCH f.aircraftConfiguration WHERE 1 = 1");
+        if (airline != null) {
+            jpql.append(" AND f.airline = :airline");
+        }
+        if (origin != null) {
+            jpql.append(" AND f.origin = :origin");
+        }
+        if (from != null) {
+            jpql.append(" AND f.departureTime >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND f.departureTime < :to");
+        }
+        if (afterDeparture != null) {
+            jpql.append(" AND (f.departureTime, f.id) > (:afterDeparture, :afterId)");
+        }
+        jpql.append(" ORDER BY f.departureTime, f.id");
+
+        TypedQuery<Flight> query = entityManager.createQuery(jpql.toString(), Flight.class);
+        if (airline != null) {
+            query.setParameter("airline", airline);
+        }
+        if (origin != null) {
+            query.setParameter("origin", origin);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (afterDeparture != null) {
+            query.setParameter("afterDeparture", afterDeparture);
+            query.setParameter("afterId", afterId);
+        }
+        // Listed flights are only serialized, so Hibernate keeps no dirty-checking copies of them
+        query.setHint("org.hibernate.readOnly", true);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
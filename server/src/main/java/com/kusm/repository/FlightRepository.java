@@ -4,7 +4,9 @@ package com.kusm.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,16 +16,75 @@ import com.kusm.model.Flight;
 @Repository
 public interface FlightRepository extends JpaRepository<Flight, Long> {
     
-    @Query("SELECT f FROM Flight f WHERE f.origin = :origin AND f.destination = :destination AND DATE(f.departureTime) = DATE(:departureDate) AND f.availableSeats > 0")
+    /**
+     * Flights of a route departing in [from, to) with seats left. The bare departure_time range
+     * lets PostgreSQL use idx_flights_route_departure_seats.
+     */
+    @Query("SELECT f FROM Flight f WHERE f.origin = :origin AND f.destination = :destination " +
+           "AND f.departureTime >= :from AND f.departureTime < :to AND f.availableSeats > 0")
     List<Flight> findAvailableFlights(@Param("origin") String origin, 
                                     @Param("destination") String destination, 
-                                    @Param("departureDate") LocalDateTime departureDate);
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
     
     List<Flight> findByOriginAndDestination(String origin, String destination);
     
-    @Query("SELECT DISTINCT f.origin FROM Flight f")
-    List<String> findAllOrigins();
+    /**
+     * One page of the flights departing at or after the given time, in id order after the given id
+     */
+    @Query("SELECT f FROM Flight f LEFT JOIN FETCH f.aircraftConfiguration " +
+           "WHERE f.departureTime >= :from AND f.id > :afterId ORDER BY f.id")
+    List<Flight> findDepartingFromAfterId(@Param("from") LocalDateTime from, @Param("afterId") Long afterId,
+                                          Pageable pageable);
     
-    @Query("SELECT DISTINCT f.destination FROM Flight f")
-    List<String> findAllDestinations();
-}
\ No newline at end of file
+    // Rows of id and version of the flights departing at or after the given time, in id order after the given id
+    @Query("SELECT f.id, f.version FROM Flight f WHERE f.departureTime >= :from AND f.id > :afterId ORDER BY f.id")
+    List<Object[]> findVersionsDepartingFromAfterId(@Param("from") LocalDateTime from, @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+    
+    @Query("SELECT f FROM Flight f LEFT JOIN FETCH f.aircraftConfiguration WHERE f.id IN :flightIds")
+    List<Flight> findAllByIdWithConfiguration(@Param("flightIds") List<Long> flightIds);
+    
+    @Query("SELECT f.version FROM Flight f WHERE f.id = :flightId")
+    Long findVersion(@Param("flightId") Long flightId);
+    
+    // Rows of origin and its flight count
+    @Query("SELECT f.origin, COUNT(f) FROM Flight f WHERE f.origin IS NOT NULL GROUP BY f.origin")
+    List<Object[]> countFlightsByOrigin();
+    
+    // Rows of destination and its flight count
+    @Query("SELECT f.destination, COUNT(f) FROM Flight f WHERE f.destination IS NOT NULL GROUP BY f.destination")
+    List<Object[]> countFlightsByDestination();
+    
+    /**
+     * Claim the one-time seat initialization of a flight. Returns 1 for the single caller that wins,
+     * concurrent callers block on the row lock and get 0 once the winner commits.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Flight f SET f.seatsInitialized = true WHERE f.id = :flightId AND f.seatsInitialized = false")
+    int markSeatsInitialized(@Param("flightId") Long flightId);
+    
+    /**
+     * Take seats off the available count in place, so concurrent bookings cannot overwrite each other.
+     * Returns 0 when fewer seats are left.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Flight f SET f.availableSeats = f.availableSeats - :seats, f.version = f.version + 1 " +
+           "WHERE f.id = :flightId AND f.availableSeats >= :seats")
+    int decrementAvailableSeats(@Param("flightId") Long flightId, @Param("seats") int seats);
+    
+    /**
+     * Give seats back to the available count in place, never above the total seat count
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Flight f SET f.availableSeats = CASE WHEN f.availableSeats + :seats > f.totalSeats " +
+           "THEN f.totalSeats ELSE f.availableSeats + :seats END, f.version = f.version + 1 WHERE f.id = :flightId")
+    int incrementAvailableSeats(@Param("flightId") Long flightId, @Param("seats") int seats);
+    
+    @Query("SELECT f.inventoryVersion FROM Flight f WHERE f.id = :flightId")
+    Long findInventoryVersion(@Param("flightId") Long flightId);
+    
+    // Rows of flight id and inventory version
+    @Query("SELECT f.id, f.inventoryVersion FROM Flight f WHERE f.id IN :flightIds")
+    List<Object[]> findInventoryVersions(@Param("flightIds") List<Long> flightIds);
+}
@@ -0,0 +1,33 @@
+package com.kusm.repository;
+
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Brings an entity the current persistence context already holds up to date after a bulk UPDATE.
+ * The conditional updates do not clear the context, which would detach every other entity the caller
+ * is still working with, so only the rows they changed are re-read here.
+ */
+@Repository
+public class ManagedEntityRefresher {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Re-read the entity if it is loaded in the current persistence context; otherwise do nothing
+     */
+    public void refresh(Class<?> type, Object id) {
+        if (id == null || !entityManager.isJoinedToTransaction()) {
+            return;
+        }
+        // Returns the managed instance when there is one, else an uninitialized proxy (no query)
+        Object reference = entityManager.getReference(type, id);
+        if (Hibernate.isInitialized(reference)) {
+            entityManager.refresh(reference);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.kusm.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.kusm.dto.flightDTO.SeatSelection;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatStatus;
+
+/**
+ * Bulk seat writes over plain JDBC. Seat ids use IDENTITY generation, which turns off Hibernate
+ * insert batching, so a whole cabin is written here as a few multi-row INSERT statements instead.
+ */
+@Repository
+public class SeatBatchRepository {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO seats (seat_number, seat_class, status, seat_row, seat_column, seat_position, exit_row, flight_id, "
+            + "created_at, updated_at) VALUES ";
+    private static final String ROW_VALUES =
+            "(?, CAST(? AS seat_class), CAST(? AS seat_status), ?, ?, ?, ?, ?, now(), now())";
+    private static final String RETURNING = " RETURNING id, seat_number";
+    // Derives row, column and (for seats created before cabin layouts) position from the seat number
+    private static final String BACKFILL_COORDINATES =
+            "UPDATE seats SET seat_row = CAST(substring(seat_number FROM '^[0-9]+') AS INTEGER), "
+            + "seat_column = substring(seat_number FROM '[A-Z]+$'), "
+            + "seat_position = COALESCE(seat_position, CASE WHEN seat_number ~ '[AF]$' THEN 'WINDOW' "
+            + "WHEN seat_number ~ '[CD]$' THEN 'AISLE' ELSE 'MIDDLE' END) "
+            + "WHERE id BETWEEN ? AND ? AND seat_row IS NULL AND seat_number ~ '^[0-9]+[A-Z]{1,3}$'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.seats.insert-chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * Insert all seats of a flight in chunks of multi-row INSERTs.
+     * The generated ids are written back into the given seat objects, which are returned.
+     */
+    public List<Seat> insertSeats(Long flightId, List<Seat> seats) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        for (int from = 0; from < seats.size(); from += chunkSize) {
+            insertChunk(flightId, seats.subList(from, Math.min(seats.size(), from + chunkSize)));
+        }
+        return seats;
+    }
+
+    private void insertChunk(Long flightId, List<Seat> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * (ROW_VALUES.length() + 2));
+        List<Object> args = new ArrayList<>(chunk.size() * 8);
+        Map<String, Seat> bySeatNumber = new HashMap<>(chunk.size() * 2);
+
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            Seat seat = chunk.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_VALUES);
+            args.add(seat.getSeatNumber());
+            args.add(seat.getSeatClass().name());
+            args.add(seat.getStatus().name());
+            args.add(seat.getRowNumber());
+            args.add(seat.getColumnCode());
+            args.add(seat.getPosition() != null ? seat.getPosition().name() : null);
+            args.add(seat.isExitRow());
+            args.add(flightId);
+            bySeatNumber.put(seat.getSeatNumber(), seat);
+        }
+        sql.append(RETURNING);
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Seat seat = bySeatNumber.get(rs.getString("seat_number"));
+            if (seat != null) {
+                seat.setId(rs.getLong("id"));
+            }
+        }, args.toArray());
+    }
+
+    /**
+     * Id range of the seats still missing their row and column, or null when there are none
+     */
+    public long[] findSeatIdRangeWithoutCoordinates() {
+        return jdbcTemplate.query("SELECT min(id), max(id) FROM seats WHERE seat_row IS NULL", rs -> {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            return new long[] {rs.getLong(1), rs.getLong(2)};
+        });
+    }
+
+    /**
+     * Fill in row and column of the seats with ids in [fromId, toId]; returns the number of updated seats
+     */
+    public int backfillCoordinates(long fromId, long toId) {
+        return jdbcTemplate.update(BACKFILL_COORDINATES, fromId, toId);
+    }
+
+    /**
+     * Move the selected seats that are in the expected status to the new status in one statement.
+     * Returns one row per selected seat in seat map order: (seatNumber, previous status, changed).
+     */
+    public List<Object[]> updateStatus(Long flightId, SeatSelection selection, SeatStatus expectedStatus,
+                                       SeatStatus newStatus) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        StringBuilder where = new StringBuilder("flight_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(flightId);
+        if (selection.getFromRow() != null) {
+            where.append(" AND seat_row >= ?");
+            args.add(selection.getFromRow());
+        }
+        if (selection.getToRow() != null) {
+            where.append(" AND seat_row <= ?");
+            args.add(selection.getToRow());
+        }
+        if (selection.getFromLetter() != null) {
+            where.append(" AND seat_column >= ?");
+            args.add(selection.getFromLetter());
+        }
+        if (selection.getToLetter() != null) {
+            where.append(" AND seat_column <= ?");
+            args.add(selection.getToLetter());
+        }
+        if (selection.getSeatClass() != null) {
+            where.append(" AND seat_class = CAST(? AS seat_class)");
+            args.add(selection.getSeatClass().name());
+        }
+        if (selection.getSeatNumbers() != null && !selection.getSeatNumbers().isEmpty()) {
+            where.append(" AND seat_number IN (");
+            for (int i = 0; i < selection.getSeatNumbers().size(); i++) {
+                where.append(i > 0 ? ", ?" : "?");
+                args.add(selection.getSeatNumbers().get(i));
+            }
+            where.append(")");
+        }
+        args.add(newStatus.name());
+        args.add(expectedStatus.name());
+
+        // The target rows are locked and read before the update, so each seat reports the status it had
+        String sql = "WITH target AS (SELECT id, seat_number, status, seat_row, seat_column FROM seats WHERE "
+                + where + " FOR UPDATE), "
+                + "changed AS (UPDATE seats s SET status = CAST(? AS seat_status), version = s.version + 1, "
+                + "updated_at = now() FROM target t WHERE s.id = t.id AND t.status = CAST(? AS seat_status) "
+                + "RETURNING s.id) "
+                + "SELECT t.seat_number, CAST(t.status AS text) AS status, c.id IS NOT NULL AS changed "
+                + "FROM target t LEFT JOIN changed c ON c.id = t.id ORDER BY t.seat_row, t.seat_column, t.seat_number";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Object[] {
+                rs.getString("seat_number"), SeatStatus.valueOf(rs.getString("status")), rs.getBoolean("changed")
+        }, args.toArray());
+    }
+}
@@ -0,0 +1,28 @@
+package com.kusm.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.kusm.model.SeatTransition;
+
+@Repository
+public interface SeatJournalRepository extends JpaRepository<SeatTransition, Long> {
+
+    // Entries a snapshot with the given horizon may not have seen
+    @Query("SELECT t FROM SeatTransition t WHERE t.flightId = :flightId AND t.txId >= :txHorizon ORDER BY t.id")
+    List<SeatTransition> findTail(@Param("flightId") Long flightId, @Param("txHorizon") Long txHorizon);
+
+    @Query("SELECT t FROM SeatTransition t WHERE t.flightId = :flightId AND t.recordedAt <= :at ORDER BY t.id")
+    List<SeatTransition> findUpTo(@Param("flightId") Long flightId, @Param("at") LocalDateTime at);
+
+    @Query("SELECT t FROM SeatTransition t WHERE t.flightId = :flightId AND t.seatNumber = :seatNumber ORDER BY t.id")
+    List<SeatTransition> findBySeat(@Param("flightId") Long flightId, @Param("seatNumber") String seatNumber);
+
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM SeatTransition t WHERE t.flightId = :flightId")
+    long findLastId(@Param("flightId") Long flightId);
+}
@@ -1,13 +1,18 @@
 package com.kusm.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.model.Reservation;
 import com.kusm.model.Seat;
 import com.kusm.model.Seat.SeatClass;
 import com.kusm.model.Seat.SeatStatus;
@@ -19,6 +24,8 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     
     List<Seat> findByFlightId(Long flightId);
     
+    boolean existsByFlightId(Long flightId);
+    
     List<Seat> findByFlightIdAndSeatClass(Long flightId, SeatClass seatClass);
     
     List<Seat> findByFlightIdAndSeatClassAndStatus(Long flightId, SeatClass seatClass, SeatStatus status);
@@ -35,12 +42,127 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
                                               @Param("seatClass") SeatClass seatClass, 
                                               @Param("status") SeatStatus status);
     
+    /**
+     * Seat read projection: only the seat columns plus the booking reference from one outer join,
+     * so no Seat, Flight or Reservation entities are loaded
+     */
+    @Query("SELECT new com.kusm.dto.flightDTO.SeatDTO(s.id, s.seatNumber, s.seatClass, s.status, s.rowNumber, " +
+           "s.columnCode, s.position, s.exitRow, r.bookingReference) " +
+           "FROM Seat s LEFT JOIN s.reservation r WHERE s.flight.id = :flightId " +
+           "ORDER BY s.rowNumber, s.columnCode, s.seatNumber")
+    List<SeatDTO> findSeatViewsByFlightId(@Param("flightId") Long flightId);
+    
     @Query("SELECT s FROM Seat s WHERE s.flight.id = :flightId AND s.status = 'AVAILABLE' " +
-           "ORDER BY s.seatClass, s.seatNumber")
+           "ORDER BY s.seatClass, s.rowNumber, s.columnCode, s.seatNumber")
     List<Seat> findAvailableSeatsByFlightIdOrderBySeatNumber(@Param("flightId") Long flightId);
     
     @Query("SELECT s FROM Seat s WHERE s.flight.id = :flightId AND s.seatClass = :seatClass " +
-           "AND s.status = 'AVAILABLE' ORDER BY s.seatNumber")
+           "AND s.status = 'AVAILABLE' ORDER BY s.rowNumber, s.columnCode, s.seatNumber")
     List<Seat> findAvailableSeatsByFlightIdAndSeatClassOrderBySeatNumber(@Param("flightId") Long flightId, 
                                                                          @Param("seatClass") SeatClass seatClass);
-}
\ No newline at end of file
+    
+    /**
+     * Conditional seat transition, only succeeds if the seat is still in the expected status.
+     * Returns the number of affected rows (0 when another booking got there first).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :newStatus, s.reservation = :reservation, s.updatedAt = CURRENT_TIMESTAMP, " +
+           "s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber = :seatNumber AND s.status = :expectedStatus")
+    int compareAndSetStatus(@Param("flightId") Long flightId,
+                            @Param("seatNumber") String seatNumber,
+                            @Param("expectedStatus") SeatStatus expectedStatus,
+                            @Param("newStatus") SeatStatus newStatus,
+                            @Param("reservation") Reservation reservation);
+    
+    /**
+     * Conditional update of several seats in one statement; returns how many of them matched
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :newStatus, s.reservation = :reservation, s.updatedAt = CURRENT_TIMESTAMP, " +
+           "s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber IN :seatNumbers AND s.status = :expectedStatus")
+    int compareAndSetStatusAll(@Param("flightId") Long flightId,
+                               @Param("seatNumbers") List<String> seatNumbers,
+                               @Param("expectedStatus") SeatStatus expectedStatus,
+                               @Param("newStatus") SeatStatus newStatus,
+                               @Param("reservation") Reservation reservation);
+    
+    /**
+     * Undo a partial compareAndSetStatusAll: release the given seats held by the reservation
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :releasedStatus, s.reservation = null, s.updatedAt = CURRENT_TIMESTAMP, " +
+           "s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber IN :seatNumbers AND s.reservation = :reservation " +
+           "AND s.status = :claimedStatus")
+    int releaseClaimedSeats(@Param("flightId") Long flightId,
+                            @Param("seatNumbers") List<String> seatNumbers,
+                            @Param("reservation") Reservation reservation,
+                            @Param("claimedStatus") SeatStatus claimedStatus,
+                            @Param("releasedStatus") SeatStatus releasedStatus);
+    
+    /**
+     * Seat counts of a flight in one pass: rows of (seatClass, status, count)
+     */
+    @Query("SELECT s.seatClass, s.status, COUNT(s) FROM Seat s WHERE s.flight.id = :flightId " +
+           "GROUP BY s.seatClass, s.status")
+    List<Object[]> countByFlightIdGroupedByClassAndStatus(@Param("flightId") Long flightId);
+    
+    /**
+     * Seat counts of several flights in one pass: rows of (flightId, seatClass, status, count)
+     */
+    @Query("SELECT s.flight.id, s.seatClass, s.status, COUNT(s) FROM Seat s WHERE s.flight.id IN :flightIds " +
+           "GROUP BY s.flight.id, s.seatClass, s.status")
+    List<Object[]> countByFlightIdsGroupedByClassAndStatus(@Param("flightIds") Collection<Long> flightIds);
+    
+    @Query("SELECT s.status FROM Seat s WHERE s.flight.id = :flightId AND s.seatNumber = :seatNumber")
+    Optional<SeatStatus> findStatusByFlightIdAndSeatNumber(@Param("flightId") Long flightId, 
+                                                           @Param("seatNumber") String seatNumber);
+    
+    List<Seat> findByStatus(SeatStatus status);
+    
+    /**
+     * Put an available seat on hold. Returns 0 if the seat is no longer available.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :heldStatus, s.holdToken = :holdToken, s.holdExpiresAt = :expiresAt, " +
+           "s.updatedAt = CURRENT_TIMESTAMP, s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber = :seatNumber AND s.status = :availableStatus")
+    int holdSeat(@Param("flightId") Long flightId,
+                 @Param("seatNumber") String seatNumber,
+                 @Param("holdToken") String holdToken,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("availableStatus") SeatStatus availableStatus,
+                 @Param("heldStatus") SeatStatus heldStatus);
+    
+    /**
+     * Turn an unexpired hold into a booking. The hold token is the only check, the seat row is not read.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :bookedStatus, s.reservation = :reservation, s.holdToken = NULL, " +
+           "s.holdExpiresAt = NULL, s.updatedAt = CURRENT_TIMESTAMP, s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber = :seatNumber AND s.status = :heldStatus " +
+           "AND s.holdToken = :holdToken AND s.holdExpiresAt > :now")
+    int convertHold(@Param("flightId") Long flightId,
+                    @Param("seatNumber") String seatNumber,
+                    @Param("holdToken") String holdToken,
+                    @Param("reservation") Reservation reservation,
+                    @Param("now") LocalDateTime now,
+                    @Param("heldStatus") SeatStatus heldStatus,
+                    @Param("bookedStatus") SeatStatus bookedStatus);
+    
+    /**
+     * Give a held seat back. Only releases the hold identified by the token.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.status = :availableStatus, s.holdToken = NULL, s.holdExpiresAt = NULL, " +
+           "s.updatedAt = CURRENT_TIMESTAMP, s.version = s.version + 1 " +
+           "WHERE s.flight.id = :flightId AND s.seatNumber = :seatNumber AND s.status = :heldStatus " +
+           "AND s.holdToken = :holdToken")
+    int releaseHold(@Param("flightId") Long flightId,
+                    @Param("seatNumber") String seatNumber,
+                    @Param("holdToken") String holdToken,
+                    @Param("heldStatus") SeatStatus heldStatus,
+                    @Param("availableStatus") SeatStatus availableStatus);
+}
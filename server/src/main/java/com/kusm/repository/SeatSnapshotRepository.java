@@ -0,0 +1,32 @@
+package com.kusm.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.kusm.model.SeatInventorySnapshot;
+
+@Repository
+public interface SeatSnapshotRepository extends JpaRepository<SeatInventorySnapshot, Long> {
+
+    Optional<SeatInventorySnapshot> findFirstByFlightIdOrderByIdDesc(Long flightId);
+
+    // Latest snapshot of every flight departing after the given time
+    @Query(value = "SELECT DISTINCT ON (s.flight_id) s.id FROM seat_inventory_snapshots s " +
+                   "JOIN flights f ON f.id = s.flight_id WHERE f.departure_time > :after " +
+                   "ORDER BY s.flight_id, s.id DESC", nativeQuery = true)
+    List<Long> findLatestIdsForDeparturesAfter(@Param("after") LocalDateTime after);
+
+    // Keep the newest snapshots of a flight, older ones are superseded
+    @Modifying
+    @Query(value = "DELETE FROM seat_inventory_snapshots WHERE flight_id = :flightId AND id NOT IN " +
+                   "(SELECT id FROM seat_inventory_snapshots WHERE flight_id = :flightId ORDER BY id DESC LIMIT :retained)",
+           nativeQuery = true)
+    int deleteOlderThanLatest(@Param("flightId") Long flightId, @Param("retained") int retained);
+}
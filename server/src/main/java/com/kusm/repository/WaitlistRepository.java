@@ -0,0 +1,33 @@
+package com.kusm.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.kusm.model.Reservation.BookingStatus;
+import com.kusm.model.WaitlistEntry;
+import com.kusm.model.WaitlistEntry.WaitlistStatus;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Queue order: priority first, then first come first served
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.flight.id = :flightId AND w.status = :status " +
+           "ORDER BY w.priority DESC, w.requestedAt, w.id")
+    List<WaitlistEntry> findByFlightIdAndStatusInQueueOrder(@Param("flightId") Long flightId,
+                                                           @Param("status") WaitlistStatus status);
+
+    @Query("SELECT DISTINCT w.flight.id FROM WaitlistEntry w WHERE w.status = :status")
+    List<Long> findFlightIdsWithStatus(@Param("status") WaitlistStatus status);
+
+    // Promotions whose reservation is still in the given status since before the cutoff
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.reservation r WHERE w.status = :status " +
+           "AND r.status = :reservationStatus AND w.promotedAt < :cutoff")
+    List<WaitlistEntry> findPromotedBefore(@Param("status") WaitlistStatus status,
+                                           @Param("reservationStatus") BookingStatus reservationStatus,
+                                           @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,151 @@
+package com.kusm.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kusm.model.Flight;
+import com.kusm.repository.FlightRepository;
+import com.kusm.utils.PrefixTrie;
+import com.kusm.utils.TransactionUtils;
+
+/**
+ * Origin and destination airports held in prefix tries for autocomplete, ranked by the number of flights
+ * that use them. Lookups never touch the database. New flights of this instance add their airports once
+ * their transaction has committed. Trie weights can only grow, so a flight moved to another route adds its
+ * new airports right away and marks the directory stale; the stale check rebuilds it within
+ * booking.airports.stale-check-interval-ms, dropping the old airport if no other flight uses it. The
+ * periodic rebuild picks up other writers and flights deleted directly in the database, which can stay
+ * listed for up to booking.airports.refresh-interval-ms.
+ */
+@Component
+public class AirportDirectory implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(AirportDirectory.class);
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Value("${booking.airports.max-results:10}")
+    private int maxResults;
+
+    private volatile PrefixTrie origins;
+    private volatile PrefixTrie destinations;
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        origins = new PrefixTrie(Math.max(1, maxResults));
+        destinations = new PrefixTrie(Math.max(1, maxResults));
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Airport directory build failed, it fills as flights are saved: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the airports and their flight counts, replacing the current contents
+     */
+    @Scheduled(fixedDelayString = "${booking.airports.refresh-interval-ms:3600000}",
+               initialDelayString = "${booking.airports.refresh-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        // Changes committed from here on are either in the loaded counts or mark the directory stale again
+        stale.set(false);
+        long start = System.currentTimeMillis();
+        PrefixTrie newOrigins = load(flightRepository.countFlightsByOrigin());
+        PrefixTrie newDestinations = load(flightRepository.countFlightsByDestination());
+        origins = newOrigins;
+        destinations = newDestinations;
+        logger.info("Airport directory loaded {} origins and {} destinations in {} ms", newOrigins.size(),
+                newDestinations.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Count a newly created flight towards its airports once the caller's transaction commits
+     */
+    public void flightAdded(Flight flight) {
+        String origin = flight.getOrigin();
+        String destination = flight.getDestination();
+        TransactionUtils.afterCommit(() -> add(origin, destination));
+    }
+
+    /**
+     * Account for an updated flight whose origin or destination changed, once the caller's transaction commits
+     */
+    public void flightRouteChanged(String previousOrigin, String previousDestination, Flight flight) {
+        String origin = flight.getOrigin();
+        String destination = flight.getDestination();
+        if (Objects.equals(previousOrigin, origin) && Objects.equals(previousDestination, destination)) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            add(Objects.equals(previousOrigin, origin) ? null : origin,
+                    Objects.equals(previousDestination, destination) ? null : destination);
+            // The previous airports lose a flight, which only a rebuild can count
+            stale.set(true);
+        });
+    }
+
+    /**
+     * Rebuild soon after a flight changed route, instead of waiting for the periodic rebuild
+     */
+    @Scheduled(fixedDelayString = "${booking.airports.stale-check-interval-ms:10000}")
+    public void rebuildIfStale() {
+        if (!stale.get()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            stale.set(true);
+            logger.error("Airport directory rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Up to limit origins starting with the prefix, most used first; all origins without a prefix
+     */
+    public List<String> origins(String prefix, Integer limit) {
+        return lookup(origins, prefix, limit);
+    }
+
+    /**
+     * Up to limit destinations starting with the prefix, most used first; all destinations without a prefix
+     */
+    public List<String> destinations(String prefix, Integer limit) {
+        return lookup(destinations, prefix, limit);
+    }
+
+    private List<String> lookup(PrefixTrie trie, String prefix, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if ((prefix == null || prefix.isBlank()) && limit == null) {
+            return trie.keys();
+        }
+        return trie.top(prefix, limit != null ? Math.min(limit, trie.getCapacity()) : trie.getCapacity());
+    }
+
+    // Serialized with rebuild so an airport added meanwhile is not lost with the replaced tries
+    private synchronized void add(String origin, String destination) {
+        origins.add(origin, 1);
+        destinations.add(destination, 1);
+    }
+
+    private PrefixTrie load(List<Object[]> counts) {
+        PrefixTrie trie = new PrefixTrie(Math.max(1, maxResults));
+        for (Object[] row : counts) {
+            trie.add((String) row[0], ((Number) row[1]).longValue());
+        }
+        return trie;
+    }
+}
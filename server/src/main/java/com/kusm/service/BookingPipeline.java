@@ -0,0 +1,396 @@
+package com.kusm.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kusm.exceptions.BookingBusyException;
+import com.kusm.model.Reservation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Alternative write path in which every flight is owned by one shard. A shard is a single thread that
+ * takes booking commands (assign, release, block, change seat) off its queue in arrival order, so
+ * commands on one flight never race each other while different flights proceed in parallel.
+ *
+ * Commands on the same flight that queued up while the shard was busy run together in one transaction;
+ * commands on other flights wait for their own batch, keeping their order. A batch therefore only locks
+ * one flight, so the transactions of two shards never hold each other's locks. If any command fails the
+ * whole batch rolls back and each command runs again on its own (with the usual conflict retries), so
+ * one failing command never takes the others down with it. Commands must therefore build fresh entities
+ * on every call, as with BookingRetryPolicy; cached seat state is only updated after commit, so the rolled
+ * back batch leaves nothing behind for the reruns.
+ *
+ * A full shard queue rejects commands with BookingBusyException, answered with 503 and Retry-After. So does
+ * a command that has not completed within booking.pipeline.command-timeout-ms, so a stuck shard never holds
+ * request threads indefinitely; the command is dropped if it has not started yet, otherwise it may still
+ * complete after the caller has given up.
+ *
+ * Disabled by default (booking.pipeline.enabled); the transactional path stays in place for comparison.
+ */
+@Component
+public class BookingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingPipeline.class);
+
+    @Autowired
+    private BookingRetryPolicy bookingRetryPolicy;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${booking.pipeline.shards:8}")
+    private int shardCount;
+
+    @Value("${booking.pipeline.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${booking.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${booking.pipeline.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${booking.pipeline.command-timeout-ms:30000}")
+    private long commandTimeoutMs;
+
+    private Shard[] shards;
+    private TransactionTemplate batchTransaction;
+
+    @PostConstruct
+    void init() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        if (!enabled) {
+            return;
+        }
+        shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+        logger.info("Booking pipeline started with {} shards, batches of up to {} commands",
+                shards.length, maxBatchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (shards != null) {
+            for (Shard shard : shards) {
+                shard.thread.interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a command on the shard owning the flight. The future completes once the command's
+     * transaction has committed, or with the command's exception.
+     */
+    public <T> CompletableFuture<T> submit(Long flightId, String operation, Supplier<T> command) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        if (!enabled) {
+            throw new IllegalStateException("Booking pipeline is disabled");
+        }
+        Command<T> queued = new Command<>(flightId, operation, command);
+        Shard shard = shardFor(flightId);
+        if (!shard.queue.offer(queued)) {
+            shard.rejected.increment();
+            queued.future.completeExceptionally(new BookingBusyException(
+                    "Too many bookings queued for flight " + flightId + ", please try again", retryAfterSeconds));
+        }
+        return queued.future;
+    }
+
+    /**
+     * Book through the shard of the flight; the command creates and returns the reservation
+     */
+    public CompletableFuture<Reservation> book(Long flightId, String operation, Supplier<Reservation> booking) {
+        return submit(flightId, operation, booking);
+    }
+
+    /**
+     * Cancel a reservation and release its seats; completes with the cancelled reservation
+     */
+    public CompletableFuture<Reservation> release(Long flightId, String bookingReference) {
+        return submit(flightId, "cancelReservation", () -> {
+            if (!reservationService.cancelReservation(bookingReference)) {
+                throw new IllegalArgumentException("Reservation " + bookingReference + " not found");
+            }
+            return reservationService.getReservationByReference(bookingReference).orElseThrow();
+        });
+    }
+
+    /**
+     * Move one seat of a reservation to another seat; completes with the updated reservation
+     */
+    public CompletableFuture<Reservation> changeSeat(Long flightId, String bookingReference, String currentSeatNumber,
+                                                     String newSeatNumber) {
+        return submit(flightId, "changeSeat", () -> {
+            if (!reservationService.changeSeat(bookingReference, currentSeatNumber, newSeatNumber)) {
+                throw new IllegalStateException("Reservation " + bookingReference + " cannot change seats");
+            }
+            return reservationService.getReservationByReference(bookingReference).orElseThrow();
+        });
+    }
+
+    /**
+     * Run a command through the configured write path and wait for it: the flight's shard when the
+     * pipeline is enabled, otherwise directly with conflict retries. Waits at most
+     * booking.pipeline.command-timeout-ms for the shard.
+     */
+    public <T> T execute(Long flightId, String operation, Supplier<T> command) {
+        if (!enabled) {
+            return bookingRetryPolicy.execute(operation, command);
+        }
+        CompletableFuture<T> future = submit(flightId, operation, command);
+        try {
+            return future.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            // Drops the command if the shard has not reached it yet
+            future.cancel(false);
+            shardFor(flightId).timedOut.increment();
+            logger.warn("{} on flight {} not completed within {} ms", operation, flightId, commandTimeoutMs);
+            throw new BookingBusyException("Booking for flight " + flightId + " is taking too long, please try again",
+                    retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        }
+    }
+
+    /**
+     * Same as execute for commands addressed by booking reference; unknown references run directly
+     */
+    public <T> T executeForReservation(String bookingReference, String operation, Supplier<T> command) {
+        Long flightId = enabled
+                ? reservationService.getReservationByReference(bookingReference)
+                        .map(reservation -> reservation.getFlight().getId()).orElse(null)
+                : null;
+        return flightId != null ? execute(flightId, operation, command) : bookingRetryPolicy.execute(operation, command);
+    }
+
+    private Shard shardFor(Long flightId) {
+        int h = flightId.hashCode();
+        h ^= (h >>> 16);
+        return shards[Math.floorMod(h, shards.length)];
+    }
+
+    /**
+     * Per-shard queue and batching counters
+     */
+    public List<ShardStatistics> getStatistics() {
+        List<ShardStatistics> statistics = new ArrayList<>();
+        if (shards == null) {
+            return statistics;
+        }
+        for (Shard shard : shards) {
+            statistics.add(new ShardStatistics(shard.index, shard.queue.size() + shard.backlogSize, shard.commands.sum(),
+                    shard.batches.sum(), shard.batchedCommands.sum(), shard.fallbacks.sum(), shard.rejected.sum(),
+                    shard.timedOut.sum()));
+        }
+        return statistics;
+    }
+
+    private final class Shard {
+        private final int index;
+        private final BlockingQueue<Command<?>> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        private final Thread thread;
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder batchedCommands = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        // Commands taken off the queue that did not fit the current batch; only touched by the shard thread
+        private final Deque<Command<?>> backlog = new ArrayDeque<>();
+        private volatile int backlogSize;
+
+        Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this::run, "booking-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            int limit = Math.max(1, maxBatchSize);
+            List<Command<?>> batch = new ArrayList<>(limit);
+            while (!Thread.currentThread().isInterrupted()) {
+                if (backlog.isEmpty()) {
+                    try {
+                        backlog.add(queue.take());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                // Whatever arrived while the previous batch was running is a candidate for this one
+                queue.drainTo(backlog, Math.max(0, limit - backlog.size()));
+                nextBatch(batch, limit);
+                backlogSize = backlog.size();
+                // Callers that gave up waiting cancelled their commands; do not run those
+                batch.removeIf(command -> command.future.isDone());
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                try {
+                    process(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Booking shard {} failed to process a batch: {}", index, e.getMessage());
+                    batch.forEach(command -> command.future.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+            backlog.addAll(queue);
+            queue.clear();
+            for (Command<?> pending : backlog) {
+                pending.future.completeExceptionally(new IllegalStateException("Booking pipeline is shutting down"));
+            }
+            backlog.clear();
+        }
+
+        // The oldest command and the following ones on the same flight, in arrival order
+        private void nextBatch(List<Command<?>> batch, int limit) {
+            Command<?> first = backlog.poll();
+            batch.add(first);
+            for (Iterator<Command<?>> it = backlog.iterator(); it.hasNext() && batch.size() < limit; ) {
+                Command<?> command = it.next();
+                if (command.flightId.equals(first.flightId)) {
+                    batch.add(command);
+                    it.remove();
+                }
+            }
+        }
+
+        private void process(List<Command<?>> batch) {
+            commands.add(batch.size());
+            if (batch.size() == 1) {
+                runAlone(batch.get(0));
+                return;
+            }
+            try {
+                List<Object> results = batchTransaction.execute(status -> {
+                    List<Object> values = new ArrayList<>(batch.size());
+                    for (Command<?> command : batch) {
+                        values.add(command.work.get());
+                    }
+                    return values;
+                });
+                batches.increment();
+                batchedCommands.add(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).complete(results.get(i));
+                }
+            } catch (RuntimeException e) {
+                // Something in the batch failed and everything rolled back: give each command its own transaction
+                fallbacks.increment();
+                logger.debug("Booking shard {} batch of {} failed, running commands one by one: {}",
+                        index, batch.size(), e.getMessage());
+                batch.forEach(this::runAlone);
+            }
+        }
+
+        private void runAlone(Command<?> command) {
+            try {
+                command.complete(bookingRetryPolicy.execute(command.operation,
+                        () -> batchTransaction.execute(status -> command.work.get())));
+            } catch (RuntimeException e) {
+                command.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Command<T> {
+        private final Long flightId;
+        private final String operation;
+        private final Supplier<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Command(Long flightId, String operation, Supplier<T> work) {
+            this.flightId = flightId;
+            this.operation = operation;
+            this.work = work;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+
+    /**
+     * Inner class for per-shard pipeline statistics
+     */
+    public static class ShardStatistics {
+        private final int shard;
+        private final int queued;
+        private final long commands;
+        private final long batches;
+        private final long batchedCommands;
+        private final long fallbacks;
+        private final long rejected;
+        private final long timedOut;
+
+        public ShardStatistics(int shard, int queued, long commands, long batches, long batchedCommands,
+                               long fallbacks, long rejected, long timedOut) {
+            this.shard = shard;
+            this.queued = queued;
+            this.commands = commands;
+            this.batches = batches;
+            this.batchedCommands = batchedCommands;
+            this.fallbacks = fallbacks;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+        }
+
+        public int getShard() { return shard; }
+        public int getQueued() { return queued; }
+        public long getCommands() { return commands; }
+        public long getBatches() { return batches; }
+        public long getBatchedCommands() { return batchedCommands; }
+        public long getFallbacks() { return fallbacks; }
+        public long getRejected() { return rejected; }
+        public long getTimedOut() { return timedOut; }
+
+        public double getAverageBatchSize() {
+            return batches > 0 ? (double) batchedCommands / batches : 0.0;
+        }
+    }
+}
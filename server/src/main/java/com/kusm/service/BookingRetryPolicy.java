@@ -0,0 +1,156 @@
+package com.kusm.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kusm.exceptions.BookingConflictException;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+
+/**
+ * Retries booking operations that lost an optimistic-lock race or hit a lock conflict in the database.
+ * Each attempt runs in its own transaction, so it must be called from outside one; backoff is
+ * exponential with full jitter so that retrying bookings on a hot flight spread out instead of
+ * colliding again.
+ */
+@Component
+public class BookingRetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingRetryPolicy.class);
+
+    @Value("${booking.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${booking.retry.initial-backoff-ms:20}")
+    private long initialBackoffMs;
+
+    @Value("${booking.retry.max-backoff-ms:500}")
+    private long maxBackoffMs;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Run the operation, retrying conflicts up to the configured number of attempts.
+     * The supplier is called again for every attempt and must not reuse entities of a failed one.
+     */
+    public <T> T execute(String operation, Supplier<T> attempt) {
+        Counters operationCounters = counters.computeIfAbsent(operation, name -> new Counters());
+        operationCounters.calls.increment();
+
+        // Inside a transaction the failed attempt has already doomed the caller's transaction
+        int attempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : Math.max(1, maxAttempts);
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            operationCounters.attempts.increment();
+            try {
+                T result = attempt.get();
+                if (attemptNumber > 1) {
+                    operationCounters.recovered.increment();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                operationCounters.conflicts.increment();
+                if (attemptNumber >= attempts) {
+                    operationCounters.exhausted.increment();
+                    logger.warn("{} still conflicting after {} attempts: {}", operation, attemptNumber, e.getMessage());
+                    throw new BookingConflictException("Too many concurrent bookings, please try again", e);
+                }
+                logger.debug("{} conflicted on attempt {}, retrying: {}", operation, attemptNumber, e.getMessage());
+                backoff(attemptNumber);
+            }
+        }
+    }
+
+    private void backoff(int attemptNumber) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attemptNumber - 1, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException("Interrupted while retrying booking", e);
+        }
+    }
+
+    /**
+     * Services wrap failures in RuntimeExceptions, so the whole cause chain is checked
+     */
+    static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof BookingConflictException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof org.hibernate.StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retry counters of every operation
+     */
+    public List<RetryStatistics> getStatistics() {
+        List<RetryStatistics> statistics = new ArrayList<>(counters.size());
+        counters.forEach((operation, c) -> statistics.add(new RetryStatistics(operation, c.calls.sum(),
+                c.attempts.sum(), c.conflicts.sum(), c.recovered.sum(), c.exhausted.sum())));
+        return statistics;
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder recovered = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+
+    /**
+     * Inner class for per-operation retry statistics
+     */
+    public static class RetryStatistics {
+        private final String operation;
+        private final long calls;
+        private final long attempts;
+        private final long conflicts;
+        private final long recovered;
+        private final long exhausted;
+
+        public RetryStatistics(String operation, long calls, long attempts, long conflicts,
+                               long recovered, long exhausted) {
+            this.operation = operation;
+            this.calls = calls;
+            this.attempts = attempts;
+            this.conflicts = conflicts;
+            this.recovered = recovered;
+            this.exhausted = exhausted;
+        }
+
+        public String getOperation() { return operation; }
+        public long getCalls() { return calls; }
+        public long getAttempts() { return attempts; }
+        public long getConflicts() { return conflicts; }
+        public long getRecovered() { return recovered; }
+        public long getExhausted() { return exhausted; }
+
+        public double getConflictRate() {
+            return attempts > 0 ? (double) conflicts / attempts : 0.0;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.kusm.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.kusm.model.AircraftConfiguration;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatPosition;
+
+/**
+ * Parsed, immutable cabin layout. Built once per aircraft configuration and shared by all its flights;
+ * seat generation and window/aisle/middle classification are driven from it.
+ */
+public final class CabinLayout {
+
+    private static final String DEFAULT_SEAT_LETTERS = "ABC-DEF";
+
+    private final String code;
+    private final int rowCount;
+    private final List<Cabin> cabins;
+    private final Cabin defaultCabin;
+    private final Set<Integer> exitRows;
+    private final Set<String> blockedSeats;
+    private final List<SeatSlot> seats;
+    private final Map<String, SeatSlot> slotsBySeatNumber;
+
+    private CabinLayout(String code, int rowCount, String seatLetters, List<Cabin> cabins,
+                        Set<Integer> exitRows, Set<String> blockedSeats, int seatLimit) {
+        if (rowCount <= 0) {
+            throw new IllegalArgumentException("Layout " + code + " must have at least 1 row");
+        }
+        this.code = code;
+        this.rowCount = rowCount;
+        this.cabins = Collections.unmodifiableList(cabins);
+        this.defaultCabin = new Cabin(SeatClass.ECONOMY, 1, rowCount, seatLetters);
+        this.exitRows = Collections.unmodifiableSet(new TreeSet<>(exitRows));
+        this.blockedSeats = Collections.unmodifiableSet(blockedSeats);
+
+        List<SeatSlot> slots = new ArrayList<>();
+        Map<String, SeatSlot> bySeatNumber = new HashMap<>();
+        for (int row = 1; row <= rowCount && slots.size() < seatLimit; row++) {
+            Cabin cabin = cabinFor(row);
+            for (int i = 0; i < cabin.letters.length() && slots.size() < seatLimit; i++) {
+                char letter = cabin.letters.charAt(i);
+                String seatNumber = row + String.valueOf(letter);
+                SeatSlot slot = new SeatSlot(seatNumber, row, letter, cabin.seatClass, cabin.positionOf(letter),
+                        exitRows.contains(row), blockedSeats.contains(seatNumber));
+                slots.add(slot);
+                bySeatNumber.put(seatNumber, slot);
+            }
+        }
+        this.seats = Collections.unmodifiableList(slots);
+        this.slotsBySeatNumber = bySeatNumber;
+    }
+
+    /**
+     * Parse the layout of an aircraft configuration
+     */
+    public static CabinLayout from(AircraftConfiguration configuration) {
+        String code = configuration.getCode();
+        int rowCount = configuration.getRowCount() != null ? configuration.getRowCount() : 0;
+        List<Cabin> cabins = new ArrayList<>();
+
+        if (configuration.getCabinClasses() != null && !configuration.getCabinClasses().isBlank()) {
+            for (String entry : configuration.getCabinClasses().split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts.length < 2) {
+                    throw new IllegalArgumentException("Invalid cabin class entry '" + entry + "' in layout " + code);
+                }
+                SeatClass seatClass;
+                try {
+                    seatClass = SeatClass.valueOf(parts[0].trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown seat class '" + parts[0] + "' in layout " + code);
+                }
+                int[] range = parseRange(parts[1].trim(), code);
+                String letters = parts.length > 2 ? parts[2].trim() : configuration.getSeatLetters();
+                cabins.add(new Cabin(seatClass, range[0], range[1], letters));
+            }
+        }
+
+        Set<Integer> exitRows = new LinkedHashSet<>();
+        if (configuration.getExitRows() != null && !configuration.getExitRows().isBlank()) {
+            for (String row : configuration.getExitRows().split(",")) {
+                exitRows.add(parseRow(row.trim(), code));
+            }
+        }
+
+        Set<String> blockedSeats = new LinkedHashSet<>();
+        if (configuration.getBlockedSeats() != null && !configuration.getBlockedSeats().isBlank()) {
+            for (String seat : configuration.getBlockedSeats().split(",")) {
+                blockedSeats.add(seat.trim().toUpperCase());
+            }
+        }
+
+        return new CabinLayout(code, rowCount, configuration.getSeatLetters(), cabins, exitRows, blockedSeats,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Layout used for flights without an aircraft configuration: 6 seats per row (A-F),
+     * first class in the first 2 rows, then business up to 15% and premium economy up to 30% of the rows.
+     * Only totalSeats seats are generated, so the last row may be partial.
+     */
+    public static CabinLayout defaultFor(int totalSeats) {
+        if (totalSeats <= 0) {
+            throw new IllegalArgumentException("Flight must have at least 1 seat");
+        }
+        int totalRows = (int) Math.ceil((double) totalSeats / 6);
+        int lastBusinessRow = Math.max(4, (int) (totalRows * 0.15));
+        int lastPremiumRow = Math.max(8, (int) (totalRows * 0.30));
+
+        List<Cabin> cabins = new ArrayList<>();
+        cabins.add(new Cabin(SeatClass.FIRST, 1, 2, DEFAULT_SEAT_LETTERS));
+        cabins.add(new Cabin(SeatClass.BUSINESS, 3, lastBusinessRow, DEFAULT_SEAT_LETTERS));
+        cabins.add(new Cabin(SeatClass.PREMIUM_ECONOMY, lastBusinessRow + 1, lastPremiumRow, DEFAULT_SEAT_LETTERS));
+
+        return new CabinLayout("DEFAULT-" + totalSeats, totalRows, DEFAULT_SEAT_LETTERS, cabins,
+                Set.of(), Set.of(), totalSeats);
+    }
+
+    private static int[] parseRange(String range, String code) {
+        int dash = range.indexOf('-');
+        if (dash < 0) {
+            int row = parseRow(range, code);
+            return new int[] {row, row};
+        }
+        int from = parseRow(range.substring(0, dash), code);
+        int to = parseRow(range.substring(dash + 1), code);
+        if (to < from) {
+            throw new IllegalArgumentException("Invalid row range '" + range + "' in layout " + code);
+        }
+        return new int[] {from, to};
+    }
+
+    private static int parseRow(String row, String code) {
+        try {
+            return Integer.parseInt(row.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid row '" + row + "' in layout " + code);
+        }
+    }
+
+    private Cabin cabinFor(int row) {
+        for (Cabin cabin : cabins) {
+            if (row >= cabin.fromRow && row <= cabin.toRow) {
+                return cabin;
+            }
+        }
+        return defaultCabin;
+    }
+
+    public String getCode() { return code; }
+
+    public int getRowCount() { return rowCount; }
+
+    public List<Cabin> getCabins() { return cabins; }
+
+    public Set<Integer> getExitRows() { return exitRows; }
+
+    public Set<String> getBlockedSeats() { return blockedSeats; }
+
+    public int getSeatCount() { return seats.size(); }
+
+    public int getSellableSeatCount() {
+        return (int) seats.stream().filter(slot -> !slot.isBlocked()).count();
+    }
+
+    /**
+     * All seats of the layout in seat map order
+     */
+    public List<SeatSlot> seats() { return seats; }
+
+    public SeatSlot slot(String seatNumber) {
+        return slotsBySeatNumber.get(seatNumber);
+    }
+
+    /**
+     * Contiguous row range of one seat class. Letters use '-' to mark aisles, e.g. "ABC-DEF".
+     */
+    public static final class Cabin {
+        private final SeatClass seatClass;
+        private final int fromRow;
+        private final int toRow;
+        private final String seatLetters;
+        // Letters without aisle markers, and the position of each of them
+        private final String letters;
+        private final Map<Character, SeatPosition> positions = new HashMap<>();
+
+        Cabin(SeatClass seatClass, int fromRow, int toRow, String seatLetters) {
+            if (seatLetters == null || seatLetters.isBlank()) {
+                throw new IllegalArgumentException("Seat letters cannot be empty");
+            }
+            String normalized = seatLetters.trim().toUpperCase();
+            this.seatClass = seatClass;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.seatLetters = normalized;
+            this.letters = normalized.replace("-", "");
+
+            String[] groups = normalized.split("-");
+            for (int g = 0; g < groups.length; g++) {
+                String group = groups[g];
+                for (int i = 0; i < group.length(); i++) {
+                    char letter = group.charAt(i);
+                    if (!Character.isLetter(letter)) {
+                        throw new IllegalArgumentException("Invalid seat letter '" + letter + "' in " + seatLetters);
+                    }
+                    boolean window = (g == 0 && i == 0) || (g == groups.length - 1 && i == group.length() - 1);
+                    boolean aisle = (i == 0 && g > 0) || (i == group.length() - 1 && g < groups.length - 1);
+                    positions.put(letter, window ? SeatPosition.WINDOW : aisle ? SeatPosition.AISLE : SeatPosition.MIDDLE);
+                }
+            }
+        }
+
+        SeatPosition positionOf(char letter) {
+            return positions.get(letter);
+        }
+
+        public SeatClass getSeatClass() { return seatClass; }
+        public int getFromRow() { return fromRow; }
+        public int getToRow() { return toRow; }
+        public String getSeatLetters() { return seatLetters; }
+    }
+
+    /**
+     * One physical seat of the layout
+     */
+    public static final class SeatSlot {
+        private final String seatNumber;
+        private final int row;
+        private final char letter;
+        private final SeatClass seatClass;
+        private final SeatPosition position;
+        private final boolean exitRow;
+        private final boolean blocked;
+
+        SeatSlot(String seatNumber, int row, char letter, SeatClass seatClass, SeatPosition position,
+                 boolean exitRow, boolean blocked) {
+            this.seatNumber = seatNumber;
+            this.row = row;
+            this.letter = letter;
+            this.seatClass = seatClass;
+            this.position = position;
+            this.exitRow = exitRow;
+            this.blocked = blocked;
+        }
+
+        public String getSeatNumber() { return seatNumber; }
+        public int getRow() { return row; }
+        public char getLetter() { return letter; }
+        public SeatClass getSeatClass() { return seatClass; }
+        public SeatPosition getPosition() { return position; }
+        public boolean isExitRow() { return exitRow; }
+        public boolean isBlocked() { return blocked; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.kusm.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.kusm.model.AircraftConfiguration;
+import com.kusm.model.Flight;
+import com.kusm.repository.AircraftConfigurationRepository;
+import com.kusm.utils.TransactionUtils;
+
+/**
+ * Aircraft configurations and their parsed cabin layouts. A layout is parsed once per configuration
+ * (or once per seat count for the default layout) and shared by every flight using it.
+ */
+@Service
+public class CabinLayoutService {
+
+    @Autowired
+    private AircraftConfigurationRepository aircraftConfigurationRepository;
+
+    private final Map<Long, CabinLayout> layoutsByConfiguration = new ConcurrentHashMap<>();
+    private final Map<Integer, CabinLayout> defaultLayouts = new ConcurrentHashMap<>();
+
+    /**
+     * Layout of a flight: its aircraft configuration, or the default layout for its seat count
+     */
+    public CabinLayout getLayout(Flight flight) {
+        AircraftConfiguration configuration = flight.getAircraftConfiguration();
+        if (configuration != null) {
+            return getLayout(configuration);
+        }
+        if (flight.getTotalSeats() == null) {
+            throw new IllegalArgumentException("Flight must have an aircraft configuration or a total seat count");
+        }
+        return defaultLayouts.computeIfAbsent(flight.getTotalSeats(), CabinLayout::defaultFor);
+    }
+
+    public CabinLayout getLayout(AircraftConfiguration configuration) {
+        return layoutsByConfiguration.computeIfAbsent(configuration.getId(), id -> CabinLayout.from(configuration));
+    }
+
+    public Optional<CabinLayout> getLayout(Long configurationId) {
+        CabinLayout cached = layoutsByConfiguration.get(configurationId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return aircraftConfigurationRepository.findById(configurationId).map(this::getLayout);
+    }
+
+    public Optional<AircraftConfiguration> getConfiguration(Long configurationId) {
+        return aircraftConfigurationRepository.findById(configurationId);
+    }
+
+    public List<AircraftConfiguration> getAllConfigurations() {
+        return aircraftConfigurationRepository.findAll();
+    }
+
+    /**
+     * Validate and save a configuration. Seats of flights that already exist are not changed.
+     */
+    @Transactional
+    public AircraftConfiguration saveConfiguration(AircraftConfiguration configuration) {
+        if (configuration.getCode() == null || configuration.getCode().isBlank()) {
+            throw new IllegalArgumentException("Configuration code cannot be empty");
+        }
+        configuration.setCode(configuration.getCode().trim().toUpperCase());
+        if (configuration.getId() == null && aircraftConfigurationRepository.existsByCode(configuration.getCode())) {
+            throw new IllegalArgumentException("Configuration " + configuration.getCode() + " already exists");
+        }
+
+        // Parsing throws IllegalArgumentException for an invalid layout
+        CabinLayout layout = CabinLayout.from(configuration);
+        for (String blockedSeat : layout.getBlockedSeats()) {
+            if (layout.slot(blockedSeat) == null) {
+                throw new IllegalArgumentException("Blocked seat " + blockedSeat + " is not part of the layout");
+            }
+        }
+
+        AircraftConfiguration saved = aircraftConfigurationRepository.save(configuration);
+        TransactionUtils.afterCommit(() -> layoutsByConfiguration.remove(saved.getId()));
+        return saved;
+    }
+}
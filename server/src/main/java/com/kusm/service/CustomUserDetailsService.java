@@ -1,9 +1,13 @@
 package com.kusm.service;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -18,6 +22,10 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    // Accounts granted ROLE_ADMIN (data exports), by email
+    @Value("${booking.security.admin-emails:}")
+    private Set<String> adminEmails;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<User> userOpt;
@@ -48,10 +56,17 @@ public class CustomUserDetailsService implements UserDetailsService {
             true, // accountNonExpired
             true, // credentialsNonExpired
             true, // accountNonLocked
-            new ArrayList<>() // authorities - empty for now, can add roles later
+            authorities(user)
         );
     }
 
+    private List<GrantedAuthority> authorities(User user) {
+        if (adminEmails.contains(user.getEmail())) {
+            return List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return List.of();
+    }
+
     public User findUserByIdentifier(String identifier) {
         Optional<User> userOpt;
         
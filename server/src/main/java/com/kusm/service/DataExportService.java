@@ -0,0 +1,188 @@
+package com.kusm.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Streams flights and reservations as newline-delimited JSON, one object per row in id order.
+ * Rows are read over a forward-only JDBC cursor that fetches a bounded number of rows at a time
+ * (PostgreSQL only honours the fetch size inside a transaction) and are written straight to the
+ * output stream, so memory use does not depend on the table size.
+ *
+ * One response carries at most booking.export.max-rows rows, which bounds how long it holds a connection
+ * and an open snapshot. It ends with a summary line, {"summary":{"rows":n,"lastId":id,"hasMore":bool}};
+ * a client continues with afterId=lastId while hasMore is true. A response without the summary line was
+ * cut off (client disconnect or booking.export.timeout-ms) and is resumed from the last id received.
+ */
+@Service
+public class DataExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataExportService.class);
+
+    private static final String FLIGHTS =
+            "SELECT id, flight_number, airline, origin, destination, departure_time, arrival_time, price, "
+            + "available_seats, total_seats, aircraft_configuration_id, version, updated_at "
+            + "FROM flights WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String RESERVATIONS =
+            "SELECT id, booking_reference, flight_id, passenger_name, passenger_email, passenger_phone, booking_time, "
+            + "total_amount, CAST(status AS text) AS status, CAST(preferred_seat_class AS text) AS preferred_seat_class, "
+            + "updated_at FROM reservations WHERE id > ? ORDER BY id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${booking.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${booking.export.max-rows:100000}")
+    private int maxRows;
+
+    private TransactionTemplate exportTransaction;
+
+    @PostConstruct
+    void init() {
+        exportTransaction = new TransactionTemplate(transactionManager);
+        exportTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Write the next flights with an id above afterId and the summary line; returns the number of rows written
+     */
+    public long exportFlights(Long afterId, OutputStream out) {
+        return export(FLIGHTS, afterId, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("flightNumber", rs.getString("flight_number"));
+            json.writeStringField("airline", rs.getString("airline"));
+            json.writeStringField("origin", rs.getString("origin"));
+            json.writeStringField("destination", rs.getString("destination"));
+            writeTimestamp(json, "departureTime", rs.getTimestamp("departure_time"));
+            writeTimestamp(json, "arrivalTime", rs.getTimestamp("arrival_time"));
+            json.writeFieldName("price");
+            json.writeNumber(rs.getBigDecimal("price"));
+            writeNullableLong(json, "availableSeats", rs, "available_seats");
+            writeNullableLong(json, "totalSeats", rs, "total_seats");
+            writeNullableLong(json, "aircraftConfigurationId", rs, "aircraft_configuration_id");
+            json.writeNumberField("version", rs.getLong("version"));
+            writeTimestamp(json, "updatedAt", rs.getTimestamp("updated_at"));
+        });
+    }
+
+    /**
+     * Write the next reservations with an id above afterId and the summary line; returns the number of rows
+     * written
+     */
+    public long exportReservations(Long afterId, OutputStream out) {
+        return export(RESERVATIONS, afterId, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("bookingReference", rs.getString("booking_reference"));
+            writeNullableLong(json, "flightId", rs, "flight_id");
+            json.writeStringField("passengerName", rs.getString("passenger_name"));
+            json.writeStringField("passengerEmail", rs.getString("passenger_email"));
+            json.writeStringField("passengerPhone", rs.getString("passenger_phone"));
+            writeTimestamp(json, "bookingTime", rs.getTimestamp("booking_time"));
+            json.writeFieldName("totalAmount");
+            json.writeNumber(rs.getBigDecimal("total_amount"));
+            json.writeStringField("status", rs.getString("status"));
+            json.writeStringField("preferredSeatClass", rs.getString("preferred_seat_class"));
+            writeTimestamp(json, "updatedAt", rs.getTimestamp("updated_at"));
+        });
+    }
+
+    private long export(String sql, Long afterId, OutputStream out, RowWriter rowWriter) {
+        long from = afterId != null ? afterId : 0L;
+        int batch = Math.max(1, fetchSize);
+        int limit = Math.max(1, maxRows);
+        long[] written = new long[1];
+        long[] lastId = {from};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            exportTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(batch);
+                statement.setLong(1, from);
+                statement.setInt(2, limit);
+                return statement;
+            }, rs -> {
+                try {
+                    json.writeStartObject();
+                    rowWriter.write(rs, json);
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    lastId[0] = rs.getLong("id");
+                    // Hand each fetched batch to the client instead of buffering it
+                    if (++written[0] % batch == 0) {
+                        json.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            // Only a complete response has it; a full page means more rows may follow
+            json.writeStartObject();
+            json.writeObjectFieldStart("summary");
+            json.writeNumberField("rows", written[0]);
+            json.writeNumberField("lastId", lastId[0]);
+            json.writeBooleanField("hasMore", written[0] == limit);
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; it can resume from the last id it received
+            logger.warn("Export stopped after {} rows: {}", written[0], e.getMessage());
+            throw e;
+        }
+        return written[0];
+    }
+
+    private static void writeTimestamp(JsonGenerator json, String field, Timestamp value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value.toLocalDateTime()));
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    private static void writeNullableLong(JsonGenerator json, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, JsonGenerator json) throws IOException, SQLException;
+    }
+}
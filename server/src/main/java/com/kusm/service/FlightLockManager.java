@@ -0,0 +1,170 @@
+package com.kusm.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kusm.exceptions.BookingLockTimeoutException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Striped lock manager that serializes seat allocation per flight inside this JVM.
+ * Flights hash onto a fixed number of stripes, so bookings on different flights rarely wait on each other.
+ */
+@Component
+public class FlightLockManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightLockManager.class);
+
+    @Value("${booking.lock.stripes:64}")
+    private int configuredStripes;
+
+    @Value("${booking.lock.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    private Stripe[] stripes;
+    private int mask;
+
+    @PostConstruct
+    void init() {
+        // Round up to a power of two so the stripe index is a mask instead of a modulo
+        int count = Integer.highestOneBit(Math.max(1, configuredStripes) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = count - 1;
+        logger.info("Flight lock manager initialized with {} stripes, {} ms wait timeout", count, waitTimeoutMs);
+    }
+
+    /**
+     * Lock the stripe of a flight until the current transaction completes (commit or rollback).
+     * Outside a transaction nothing would release the lock, use {@link #lock(Long)} and
+     * {@link #unlock(Long)} in try/finally instead.
+     */
+    public void lockForTransaction(Long flightId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Flight " + flightId + " can only be locked for an active transaction");
+        }
+        Stripe stripe = acquire(flightId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Acquire the stripe of a flight, waiting at most the configured timeout
+     */
+    public void lock(Long flightId) {
+        acquire(flightId);
+    }
+
+    private Stripe acquire(Long flightId) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        Stripe stripe = stripeFor(flightId);
+        stripe.acquisitions.increment();
+
+        if (stripe.lock.tryLock()) {
+            return stripe;
+        }
+
+        stripe.contended.increment();
+        long startedAt = System.nanoTime();
+        try {
+            if (!stripe.lock.tryLock(waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                stripe.timeouts.increment();
+                throw new BookingLockTimeoutException("Flight " + flightId + " is busy, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingLockTimeoutException("Interrupted while waiting for flight " + flightId);
+        } finally {
+            stripe.waitNanos.add(System.nanoTime() - startedAt);
+        }
+        return stripe;
+    }
+
+    public void unlock(Long flightId) {
+        stripeFor(flightId).lock.unlock();
+    }
+
+    private Stripe stripeFor(Long flightId) {
+        int h = flightId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Contention counters for every stripe
+     */
+    public List<StripeStatistics> getStatistics() {
+        List<StripeStatistics> statistics = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            statistics.add(new StripeStatistics(i, stripe.acquisitions.sum(), stripe.contended.sum(),
+                    stripe.timeouts.sum(), TimeUnit.NANOSECONDS.toMillis(stripe.waitNanos.sum()),
+                    stripe.lock.getQueueLength()));
+        }
+        return statistics;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+    }
+
+    /**
+     * Inner class for per-stripe lock statistics
+     */
+    public static class StripeStatistics {
+        private final int stripe;
+        private final long acquisitions;
+        private final long contended;
+        private final long timeouts;
+        private final long totalWaitMs;
+        private final int queueLength;
+
+        public StripeStatistics(int stripe, long acquisitions, long contended, long timeouts,
+                                long totalWaitMs, int queueLength) {
+            this.stripe = stripe;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.timeouts = timeouts;
+            this.totalWaitMs = totalWaitMs;
+            this.queueLength = queueLength;
+        }
+
+        public int getStripe() { return stripe; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getContended() { return contended; }
+        public long getTimeouts() { return timeouts; }
+        public long getTotalWaitMs() { return totalWaitMs; }
+        public int getQueueLength() { return queueLength; }
+
+        public double getContentionRate() {
+            return acquisitions > 0 ? (double) contended / acquisitions * 100 : 0;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.kusm.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kusm.model.AircraftConfiguration;
+import com.kusm.model.Flight;
+import com.kusm.repository.FlightRepository;
+import com.kusm.utils.TransactionUtils;
+
+/**
+ * In-memory search index of flights departing today or later, keyed by (origin, destination, departure
+ * date) with the flights of each key sorted by departure time. Searches read an immutable array per key
+ * without locking; writers replace the array (and the changed flight, which is a private copy) under the
+ * index lock once their transaction has committed. Dates before the indexed range go to the database.
+ *
+ * The index follows changes made by this instance: saved flights and available-seat count updates. Every
+ * indexed flight carries its row version (every flight update bumps it by one), so a seat count change is
+ * only applied on top of the version right before it. A periodic refresh compares the indexed versions with
+ * the database and reloads the flights that differ, which picks up other writers, changes this instance
+ * could not apply and deleted flights.
+ */
+@Component
+public class FlightSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightSearchIndex.class);
+
+    private static final Comparator<Flight> BY_DEPARTURE =
+            Comparator.comparing(Flight::getDepartureTime).thenComparing(Flight::getId);
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Value("${booking.search.index-enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.search.index-batch-size:5000}")
+    private int batchSize;
+
+    // Reloads per query of the refresh; kept well below the bind parameter limit
+    private static final int RELOAD_BATCH = 500;
+
+    private volatile Map<RouteDay, Flight[]> routes = new ConcurrentHashMap<>();
+    // Guarded by this
+    private Map<Long, Flight> flightsById = new HashMap<>();
+    private volatile LocalDate indexedFrom;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Flight search index build failed, searches will query the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load all flights departing today or later, replacing the current contents
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate from = LocalDate.now();
+        Map<RouteDay, List<Flight>> grouped = new HashMap<>();
+        Map<Long, Flight> byId = new HashMap<>();
+        long afterId = 0L;
+        while (true) {
+            List<Flight> page = flightRepository.findDepartingFromAfterId(from.atStartOfDay(), afterId,
+                    PageRequest.of(0, Math.max(1, batchSize)));
+            for (Flight flight : page) {
+                grouped.computeIfAbsent(RouteDay.of(flight), key -> new ArrayList<>()).add(flight);
+                byId.put(flight.getId(), flight);
+            }
+            if (page.size() < batchSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        Map<RouteDay, Flight[]> index = new ConcurrentHashMap<>(grouped.size() * 2);
+        grouped.forEach((key, flights) -> {
+            Flight[] sorted = flights.toArray(new Flight[0]);
+            Arrays.sort(sorted, BY_DEPARTURE);
+            index.put(key, sorted);
+        });
+        routes = index;
+        flightsById = byId;
+        indexedFrom = from;
+        logger.info("Indexed {} flights on {} route-days for search in {} ms", byId.size(), index.size(),
+                System.currentTimeMillis() - start);
+        return byId.size();
+    }
+
+    /**
+     * True when searches for the date can be answered from the index
+     */
+    public boolean covers(LocalDate date) {
+        LocalDate from = indexedFrom;
+        return enabled && from != null && date != null && !date.isBefore(from);
+    }
+
+    /**
+     * Flights of a route departing on the date with seats left, earliest first
+     */
+    public List<Flight> search(String origin, String destination, LocalDate date) {
+        Flight[] flights = routes.get(new RouteDay(origin, destination, date));
+        if (flights == null) {
+            return Collections.emptyList();
+        }
+        List<Flight> available = new ArrayList<>(flights.length);
+        for (Flight flight : flights) {
+            if (flight.getAvailableSeats() != null && flight.getAvailableSeats() > 0) {
+                available.add(flight);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Index a saved flight once the transaction commits. Must be called inside the saving
+     * transaction, so the aircraft configuration can still be loaded.
+     */
+    public void flightSaved(Flight flight) {
+        if (!enabled || flight.getId() == null) {
+            return;
+        }
+        // The version is only incremented when the update is flushed
+        flightRepository.flush();
+        Flight copy = copyOf(flight);
+        TransactionUtils.afterCommit(() -> put(copy));
+    }
+
+    /**
+     * Apply a committed change of a flight's available seat count, mirroring the database update:
+     * taken seats only when enough are left, returned seats never above the total. Must be called inside
+     * the updating transaction, right after the update, to read the version it produced.
+     */
+    public void availableSeatsChanged(Long flightId, int delta) {
+        if (enabled && delta != 0) {
+            Long version = flightRepository.findVersion(flightId);
+            if (version != null) {
+                TransactionUtils.afterCommit(() -> adjust(flightId, delta, version));
+            }
+        }
+    }
+
+    /**
+     * Reload the indexed flights whose version differs from the database and drop the deleted ones
+     */
+    @Scheduled(fixedDelayString = "${booking.search.index-refresh-interval-ms:300000}",
+               initialDelayString = "${booking.search.index-refresh-interval-ms:300000}")
+    public void refresh() {
+        LocalDate from = indexedFrom;
+        if (!enabled || from == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // Only flights indexed before the scan can be missing from it because they were deleted
+        Set<Long> unseen;
+        synchronized (this) {
+            unseen = new HashSet<>(flightsById.keySet());
+        }
+        List<Long> changed = new ArrayList<>();
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> page = flightRepository.findVersionsDepartingFromAfterId(from.atStartOfDay(), afterId,
+                    PageRequest.of(0, Math.max(1, batchSize)));
+            synchronized (this) {
+                for (Object[] row : page) {
+                    Long flightId = (Long) row[0];
+                    unseen.remove(flightId);
+                    Flight indexed = flightsById.get(flightId);
+                    if (indexed == null || !Objects.equals(indexed.getVersion(), row[1])) {
+                        changed.add(flightId);
+                    }
+                }
+            }
+            if (page.size() < batchSize) {
+                break;
+            }
+            afterId = (Long) page.get(page.size() - 1)[0];
+        }
+
+        for (int i = 0; i < changed.size(); i += RELOAD_BATCH) {
+            for (Flight flight : flightRepository.findAllByIdWithConfiguration(
+                    changed.subList(i, Math.min(changed.size(), i + RELOAD_BATCH)))) {
+                putIfNewer(copyOf(flight));
+            }
+        }
+        synchronized (this) {
+            unseen.forEach(this::remove);
+        }
+        if (!changed.isEmpty() || !unseen.isEmpty()) {
+            logger.info("Flight search index refreshed {} changed and {} removed flights in {} ms", changed.size(),
+                    unseen.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Drop flights that departed before today
+     */
+    @Scheduled(fixedDelayString = "${booking.search.index-prune-interval-ms:3600000}")
+    public synchronized void pruneDeparted() {
+        LocalDate today = LocalDate.now();
+        if (indexedFrom == null || !indexedFrom.isBefore(today)) {
+            return;
+        }
+        // Searches for the dropped days go to the database from here on
+        indexedFrom = today;
+        routes.keySet().removeIf(key -> key.date.isBefore(today));
+        flightsById.values().removeIf(flight -> flight.getDepartureTime().toLocalDate().isBefore(today));
+    }
+
+    public synchronized int size() {
+        return flightsById.size();
+    }
+
+    private synchronized void put(Flight flight) {
+        if (indexedFrom == null) {
+            return;
+        }
+        Flight previous = flightsById.remove(flight.getId());
+        if (previous != null) {
+            removeFromRoute(previous);
+        }
+        if (flight.getDepartureTime().toLocalDate().isBefore(indexedFrom)) {
+            return;
+        }
+        flightsById.put(flight.getId(), flight);
+        routes.compute(RouteDay.of(flight), (key, flights) -> {
+            if (flights == null) {
+                return new Flight[] {flight};
+            }
+            int insertAt = -Arrays.binarySearch(flights, flight, BY_DEPARTURE) - 1;
+            Flight[] updated = new Flight[flights.length + 1];
+            System.arraycopy(flights, 0, updated, 0, insertAt);
+            updated[insertAt] = flight;
+            System.arraycopy(flights, insertAt, updated, insertAt + 1, flights.length - insertAt);
+            return updated;
+        });
+    }
+
+    // A reloaded flight only replaces an older indexed version, so a change it already contains and whose
+    // commit callback runs afterwards is not applied twice
+    private synchronized void putIfNewer(Flight flight) {
+        Flight current = flightsById.get(flight.getId());
+        if (current == null || current.getVersion() == null || flight.getVersion() == null
+                || flight.getVersion() > current.getVersion()) {
+            put(flight);
+        }
+    }
+
+    private synchronized void remove(Long flightId) {
+        Flight previous = flightsById.remove(flightId);
+        if (previous != null) {
+            removeFromRoute(previous);
+        }
+    }
+
+    private synchronized void adjust(Long flightId, int delta, long version) {
+        Flight current = flightsById.get(flightId);
+        if (current == null || current.getAvailableSeats() == null || current.getVersion() == null) {
+            return;
+        }
+        // Already contained (reloaded after the commit), or an update was missed: the refresh reloads it
+        if (current.getVersion() != version - 1) {
+            return;
+        }
+        int available = current.getAvailableSeats();
+        int total = current.getTotalSeats() != null ? current.getTotalSeats() : Integer.MAX_VALUE;
+        if (delta < 0 && available < -delta) {
+            return;
+        }
+        Flight updated = copyOf(current);
+        updated.setAvailableSeats(Math.min(total, available + delta));
+        updated.setVersion(version);
+        flightsById.put(flightId, updated);
+        routes.computeIfPresent(RouteDay.of(updated), (key, flights) -> {
+            Flight[] replaced = flights.clone();
+            for (int i = 0; i < replaced.length; i++) {
+                if (replaced[i].getId().equals(flightId)) {
+                    replaced[i] = updated;
+                }
+            }
+            return replaced;
+        });
+    }
+
+    private void removeFromRoute(Flight flight) {
+        routes.computeIfPresent(RouteDay.of(flight), (key, flights) -> {
+            Flight[] remaining = Arrays.stream(flights)
+                    .filter(indexed -> !indexed.getId().equals(flight.getId()))
+                    .toArray(Flight[]::new);
+            return remaining.length > 0 ? remaining : null;
+        });
+    }
+
+    // Searches hand out the indexed instances, so every change goes into a new copy
+    private static Flight copyOf(Flight flight) {
+        Flight copy = new Flight(flight.getFlightNumber(), flight.getAirline(), flight.getOrigin(),
+                flight.getDestination(), flight.getDepartureTime(), flight.getArrivalTime(), flight.getPrice(),
+                flight.getTotalSeats());
+        copy.setId(flight.getId());
+        copy.setAvailableSeats(flight.getAvailableSeats());
+        copy.setSeatsInitialized(flight.isSeatsInitialized());
+        copy.setVersion(flight.getVersion());
+        copy.setCreatedAt(flight.getCreatedAt());
+        copy.setUpdatedAt(flight.getUpdatedAt());
+        AircraftConfiguration configuration = flight.getAircraftConfiguration();
+        copy.setAircraftConfiguration(configuration != null ? (AircraftConfiguration) Hibernate.unproxy(configuration) : null);
+        return copy;
+    }
+
+    private static final class RouteDay {
+        private final String origin;
+        private final String destination;
+        private final LocalDate date;
+
+        RouteDay(String origin, String destination, LocalDate date) {
+            this.origin = origin;
+            this.destination = destination;
+            this.date = date;
+        }
+
+        static RouteDay of(Flight flight) {
+            LocalDateTime departure = flight.getDepartureTime();
+            return new RouteDay(flight.getOrigin(), flight.getDestination(), departure.toLocalDate());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof RouteDay)) {
+                return false;
+            }
+            RouteDay key = (RouteDay) other;
+            return Objects.equals(origin, key.origin) && Objects.equals(destination, key.destination)
+                    && Objects.equals(date, key.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origin, destination, date);
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.kusm.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.kusm.exceptions.BookingConflictException;
+import com.kusm.model.AircraftConfiguration;
 import com.kusm.model.Flight;
+import com.kusm.repository.FlightPageRepository;
 import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ManagedEntityRefresher;
 
 @Service
 public class FlightService {
@@ -20,12 +29,93 @@ public class FlightService {
     @Autowired
     private SeatService seatService;
     
+    @Autowired
+    private CabinLayoutService cabinLayoutService;
+    
+    @Autowired
+    private FlightSearchIndex flightSearchIndex;
+    
+    @Autowired
+    private FlightPageRepository flightPageRepository;
+    
+    @Autowired
+    private ManagedEntityRefresher managedEntities;
+    
+    @Autowired
+    private AirportDirectory airportDirectory;
+    
+    @Value("${booking.flights.page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${booking.flights.max-page-size:200}")
+    private int maxPageSize;
+    
+    /**
+     * Flights of a route on the departure date with seats left, served from the search index
+     * when it covers the date
+     */
     public List<Flight> searchFlights(String origin, String destination, LocalDateTime departureDate) {
-        return flightRepository.findAvailableFlights(origin, destination, departureDate);
+        if (departureDate == null) {
+            throw new IllegalArgumentException("Departure date cannot be null");
+        }
+        LocalDate day = departureDate.toLocalDate();
+        if (flightSearchIndex.covers(day)) {
+            return flightSearchIndex.search(origin, destination, day);
+        }
+        // Half-open range over the whole day
+        return flightRepository.findAvailableFlights(origin, destination, day.atStartOfDay(),
+                day.plusDays(1).atStartOfDay());
+    }
+    
+    /**
+     * One page of flights in departure order, optionally filtered by airline, origin and a departure
+     * window [from, to). Pass the previous page's next cursor to continue; the page size is capped.
+     */
+    @Transactional(readOnly = true)
+    public FlightPage listFlights(String airline, String origin, LocalDateTime from, LocalDateTime to,
+                                  String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(1, size), maxPageSize);
+        LocalDateTime afterDeparture = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterDeparture = LocalDateTime.parse(position[0]);
+            afterId = Long.valueOf(position[1]);
+        }
+        
+        // One extra row tells whether another page follows
+        List<Flight> flights = flightPageRepository.findPage(blankToNull(airline), blankToNull(origin), from, to,
+                afterDeparture, afterId, pageSize + 1);
+        String nextCursor = null;
+        if (flights.size() > pageSize) {
+            flights = flights.subList(0, pageSize);
+            Flight last = flights.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getDepartureTime(), last.getId());
+        }
+        return new FlightPage(flights, nextCursor);
+    }
+    
+    private static String encodeCursor(LocalDateTime departureTime, Long id) {
+        String position = departureTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
     
-    public List<Flight> getAllFlights() {
-        return flightRepository.findAll();
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
     
     public Optional<Flight> getFlightById(Long id) {
@@ -34,41 +124,119 @@ public class FlightService {
     
     @Transactional
     public Flight saveFlight(Flight flight) {
+        // save() assigns the id to the same instance, so check for a new flight before saving
+        boolean isNew = flight.getId() == null;
+        
+        if (flight.getAircraftConfiguration() != null) {
+            applyAircraftConfiguration(flight, isNew);
+        }
+        
+        String previousOrigin = null;
+        String previousDestination = null;
+        if (!isNew) {
+            // Without the version the client read, a concurrent change would be silently overwritten
+            if (flight.getVersion() == null) {
+                throw new IllegalArgumentException("Flight updates must carry the version the flight was read at");
+            }
+            Optional<Flight> current = flightRepository.findById(flight.getId());
+            if (current.isPresent()) {
+                previousOrigin = current.get().getOrigin();
+                previousDestination = current.get().getDestination();
+            }
+        }
+        
         Flight savedFlight = flightRepository.save(flight);
         
         // Initialize seats when a new flight is created
-        if (flight.getId() == null) { // New flight
+        if (isNew) {
             seatService.initializeSeatsForFlight(savedFlight);
+            airportDirectory.flightAdded(savedFlight);
+        } else {
+            airportDirectory.flightRouteChanged(previousOrigin, previousDestination, savedFlight);
         }
         
+        flightSearchIndex.flightSaved(savedFlight);
         return savedFlight;
     }
     
-    public List<String> getAllOrigins() {
-        return flightRepository.findAllOrigins();
+    /**
+     * Resolve the aircraft configuration (requests may only carry its id) and, for new flights,
+     * take the seat counts from its layout
+     */
+    private void applyAircraftConfiguration(Flight flight, boolean isNew) {
+        Long configurationId = flight.getAircraftConfiguration().getId();
+        if (configurationId == null) {
+            throw new IllegalArgumentException("Aircraft configuration ID cannot be null");
+        }
+        AircraftConfiguration configuration = cabinLayoutService.getConfiguration(configurationId)
+                .orElseThrow(() -> new IllegalArgumentException("Aircraft configuration not found with ID: " + configurationId));
+        flight.setAircraftConfiguration(configuration);
+        
+        if (isNew) {
+            CabinLayout layout = cabinLayoutService.getLayout(configuration);
+            flight.setTotalSeats(layout.getSeatCount());
+            flight.setAvailableSeats(layout.getSellableSeatCount());
+        }
+    }
+    
+    /**
+     * Origins for autocomplete, served from the airport directory
+     */
+    public List<String> getAllOrigins(String prefix, Integer limit) {
+        return airportDirectory.origins(prefix, limit);
     }
     
-    public List<String> getAllDestinations() {
-        return flightRepository.findAllDestinations();
+    /**
+     * Destinations for autocomplete, served from the airport directory
+     */
+    public List<String> getAllDestinations(String prefix, Integer limit) {
+        return airportDirectory.destinations(prefix, limit);
     }
     
+    /**
+     * Take booked seats off the flight's available count. The count is decremented in the database
+     * rather than written from a value read earlier, so concurrent bookings do not overwrite each other.
+     */
     @Transactional
     public boolean updateAvailableSeats(Long flightId, int seatsToBook) {
-        Optional<Flight> flightOpt = flightRepository.findById(flightId);
-        if (flightOpt.isPresent()) {
-            Flight flight = flightOpt.get();
-            
-            // Get actual available seat count from seat service
-            long actualAvailableSeats = seatService.getAvailableSeatCount(flightId);
-            
-            if (actualAvailableSeats >= seatsToBook) {
-                // Update the flight's available seats to match actual count
-                flight.setAvailableSeats((int) (actualAvailableSeats - seatsToBook));
-                flightRepository.save(flight);
-                return true;
-            }
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        boolean updated = flightRepository.decrementAvailableSeats(flightId, seatsToBook) == 1;
+        if (updated) {
+            managedEntities.refresh(Flight.class, flightId);
+            flightSearchIndex.availableSeatsChanged(flightId, -seatsToBook);
         }
-        return false;
+        return updated;
+    }
+    
+    /**
+     * Take seats that were just booked off the available count. A count that cannot cover them means the
+     * seats and the count disagree, so the booking must not commit: the conflict rolls it back (and lets
+     * BookingRetryPolicy try again).
+     */
+    @Transactional
+    public void takeAvailableSeats(Long flightId, int seatsToBook) {
+        if (!updateAvailableSeats(flightId, seatsToBook)) {
+            throw new BookingConflictException("Flight " + flightId + " has fewer than " + seatsToBook
+                    + " seats left to book");
+        }
+    }
+    
+    /**
+     * Give released seats back to the flight's available count
+     */
+    @Transactional
+    public boolean releaseAvailableSeats(Long flightId, int seatsToRelease) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        boolean updated = flightRepository.incrementAvailableSeats(flightId, seatsToRelease) == 1;
+        if (updated) {
+            managedEntities.refresh(Flight.class, flightId);
+            flightSearchIndex.availableSeatsChanged(flightId, seatsToRelease);
+        }
+        return updated;
     }
     
     /**
@@ -81,7 +249,7 @@ public class FlightService {
             Flight flight = flightOpt.get();
             long actualAvailableSeats = seatService.getAvailableSeatCount(flightId);
             flight.setAvailableSeats((int) actualAvailableSeats);
-            flightRepository.save(flight);
+            flightSearchIndex.flightSaved(flightRepository.save(flight));
         }
     }
     
@@ -98,4 +266,22 @@ public class FlightService {
         }
         return Optional.empty();
     }
-}
\ No newline at end of file
+    
+    /**
+     * Inner class for one page of the flight listing
+     */
+    public static class FlightPage {
+        private final List<Flight> flights;
+        private final String nextCursor;
+        
+        public FlightPage(List<Flight> flights, String nextCursor) {
+            this.flights = flights;
+            this.nextCursor = nextCursor;
+        }
+        
+        public List<Flight> getFlights() { return flights; }
+        public String getNextCursor() { return nextCursor; }
+        public int getSize() { return flights.size(); }
+        public boolean isHasMore() { return nextCursor != null; }
+    }
+}
@@ -0,0 +1,452 @@
+package com.kusm.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatPosition;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.service.SeatInventory.FlightInventory;
+import com.kusm.service.SeatInventory.InventorySink;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional memory-mapped copy of the seat inventory of upcoming flights, so a restarted instance is warm
+ * without reading the seats table. The file has a fixed layout:
+ *
+ *   file header   magic, format, slot count, seats per slot
+ *   slot header   flight id, inventory version, departure, seat count, state
+ *   descriptors   16 bytes per seat: id, row, column, class, position, exit row (written once)
+ *   statuses      1 byte per seat: SeatStatus ordinal, updated in place on every change
+ *
+ * The slot's inventory version is flights.inventory_version as of its contents. Status bytes are updated
+ * as changes commit, but a new version is only written by force, after the status pages it covers have
+ * been forced to disk; until then the slot keeps its previous version (a freshly written slot has none).
+ * Whatever order the operating system writes pages back in, the stored version therefore never claims
+ * statuses that are not on disk: after a process or machine crash a slot is current or behind, and on
+ * startup it is only used when its version equals the database's (SeatInventory.restoreFromMappedStore).
+ *
+ * Versions are only maintained while the store is enabled (SeatJournal), so a disabled store deletes the
+ * file instead of leaving it to be trusted once enabled again.
+ */
+@Component
+public class MappedSeatStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedSeatStore.class);
+
+    private static final int MAGIC = 0x4B534956;
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 64;
+    private static final int SLOT_HEADER_BYTES = 32;
+    private static final int DESCRIPTOR_BYTES = 16;
+    private static final int COLUMN_BYTES = 3;
+
+    // Slot header fields
+    private static final int FLIGHT_ID = 0;
+    private static final int INVENTORY_VERSION = 8;
+    private static final int DEPARTURE = 16;
+    private static final int SEAT_COUNT = 24;
+    private static final int STATE = 28;
+
+    private static final int STATE_FREE = 0;
+    private static final int STATE_WRITING = 1;
+    private static final int STATE_VALID = 2;
+
+    @Value("${booking.inventory.mmap.enabled:false}")
+    private boolean enabled;
+
+    @Value("${booking.inventory.mmap.path:data/seat-inventory.dat}")
+    private String path;
+
+    @Value("${booking.inventory.mmap.slots:2048}")
+    private int slotCount;
+
+    @Value("${booking.inventory.mmap.max-seats:1024}")
+    private int maxSeats;
+
+    @Value("${booking.inventory.mmap.horizon-days:30}")
+    private int horizonDays;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotBytes;
+    private final Map<Long, Integer> slotByFlight = new HashMap<>();
+    // Versions waiting for the next force, by flight. Filled under inventory locks, so not under this one.
+    private final Map<Long, PendingVersion> pendingVersions = new ConcurrentHashMap<>();
+    private long attached;
+    private long skipped;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            if (Files.deleteIfExists(Paths.get(path).toAbsolutePath())) {
+                logger.info("Deleted seat inventory file {}: versions are not maintained while it is disabled", path);
+            }
+            return;
+        }
+        slotBytes = SLOT_HEADER_BYTES + maxSeats * (DESCRIPTOR_BYTES + 1);
+        long fileBytes = FILE_HEADER_BYTES + (long) slotCount * slotBytes;
+        if (fileBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Seat inventory file of " + fileBytes + " bytes is too large to map");
+        }
+
+        Path file = Paths.get(path).toAbsolutePath();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = channel.size() == fileBytes;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+
+        if (reusable && buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT_VERSION
+                && buffer.getInt(8) == slotCount && buffer.getInt(12) == maxSeats) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                int base = slotBase(slot);
+                if (buffer.getInt(base + STATE) == STATE_VALID) {
+                    slotByFlight.put(buffer.getLong(base + FLIGHT_ID), slot);
+                } else {
+                    buffer.putInt(base + STATE, STATE_FREE);
+                }
+            }
+            logger.info("Mapped seat inventory file {} with {} flights", file, slotByFlight.size());
+        } else {
+            // New file or a different layout: start empty
+            for (int slot = 0; slot < slotCount; slot++) {
+                buffer.putInt(slotBase(slot) + STATE, STATE_FREE);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, slotCount);
+            buffer.putInt(12, maxSeats);
+            buffer.force();
+            logger.info("Created seat inventory file {} ({} slots of {} seats)", file, slotCount, maxSeats);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        force();
+        channel.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Write back the status pages, then the versions of the changes they contain. A crash between the two
+     * leaves the slots at their previous versions, which the restore check then rejects.
+     */
+    @Scheduled(fixedDelayString = "${booking.inventory.mmap.force-interval-ms:1000}")
+    public synchronized void force() {
+        if (!enabled) {
+            return;
+        }
+        List<Map.Entry<Long, PendingVersion>> drained = new ArrayList<>();
+        for (Map.Entry<Long, PendingVersion> entry : pendingVersions.entrySet()) {
+            if (pendingVersions.remove(entry.getKey(), entry.getValue())) {
+                drained.add(entry);
+            }
+        }
+        // Statuses are written before their version is queued, so these pages hold every drained change
+        buffer.force();
+        if (drained.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, PendingVersion> entry : drained) {
+            PendingVersion pending = entry.getValue();
+            if (buffer.getLong(pending.base + FLIGHT_ID) == entry.getKey()) {
+                buffer.putLong(pending.base + INVENTORY_VERSION, pending.version);
+            }
+        }
+        buffer.force();
+    }
+
+    /**
+     * Copy a flight inventory into a slot and keep the slot updated with its changes. Flights departing
+     * outside the horizon, larger than a slot or with seat numbers that are not row + column are skipped.
+     */
+    public synchronized void attach(FlightInventory inventory, LocalDateTime departureTime) {
+        if (!enabled || departureTime == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (departureTime.isBefore(now) || departureTime.isAfter(now.plusDays(horizonDays))
+                || inventory.size() > maxSeats) {
+            return;
+        }
+        Long flightId = inventory.getFlightId();
+        long departure = departureTime.toEpochSecond(ZoneOffset.UTC);
+        Integer slot = slotByFlight.get(flightId);
+        if (slot == null) {
+            slot = allocate(departure, now.toEpochSecond(ZoneOffset.UTC));
+            if (slot == null) {
+                skipped++;
+                return;
+            }
+        }
+        int base = slotBase(slot);
+        int target = slot;
+        boolean written = inventory.attach(source -> write(base, source, departure) ? new SlotSink(base, flightId) : null);
+        if (written) {
+            slotByFlight.put(flightId, target);
+            attached++;
+        } else {
+            buffer.putInt(base + STATE, STATE_FREE);
+            slotByFlight.remove(flightId);
+            skipped++;
+        }
+    }
+
+    /**
+     * Valid slots of flights that have not departed yet
+     */
+    public synchronized List<MappedFlight> readFlights() {
+        List<MappedFlight> flights = new ArrayList<>();
+        if (!enabled) {
+            return flights;
+        }
+        long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+        for (Map.Entry<Long, Integer> entry : new ArrayList<>(slotByFlight.entrySet())) {
+            int base = slotBase(entry.getValue());
+            long departure = buffer.getLong(base + DEPARTURE);
+            List<Seat> seats = departure > now ? read(base) : null;
+            if (seats == null) {
+                buffer.putInt(base + STATE, STATE_FREE);
+                slotByFlight.remove(entry.getKey());
+                continue;
+            }
+            flights.add(new MappedFlight(entry.getKey(), buffer.getLong(base + INVENTORY_VERSION),
+                    LocalDateTime.ofEpochSecond(departure, 0, ZoneOffset.UTC), seats));
+        }
+        return flights;
+    }
+
+    /**
+     * Free the slot of a flight whose contents are outdated
+     */
+    public synchronized void release(Long flightId) {
+        pendingVersions.remove(flightId);
+        Integer slot = slotByFlight.remove(flightId);
+        if (slot != null) {
+            buffer.putInt(slotBase(slot) + STATE, STATE_FREE);
+        }
+    }
+
+    // A free or departed slot, else the one departing last if the new flight departs before it
+    private Integer allocate(long departure, long now) {
+        Integer latestSlot = null;
+        long latestDeparture = Long.MIN_VALUE;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slotBase(slot);
+            if (buffer.getInt(base + STATE) == STATE_FREE) {
+                return slot;
+            }
+            long slotDeparture = buffer.getLong(base + DEPARTURE);
+            if (slotDeparture <= now || slotDeparture > latestDeparture) {
+                latestSlot = slot;
+                latestDeparture = slotDeparture <= now ? Long.MAX_VALUE : slotDeparture;
+            }
+        }
+        if (latestSlot == null || latestDeparture <= departure) {
+            return null;
+        }
+        slotByFlight.remove(buffer.getLong(slotBase(latestSlot) + FLIGHT_ID));
+        return latestSlot;
+    }
+
+    // Called under the inventory lock, so no change slips in between the copy and the sink
+    private boolean write(int base, FlightInventory inventory, long departure) {
+        int size = inventory.size();
+        buffer.putInt(base + STATE, STATE_WRITING);
+        buffer.putLong(base + FLIGHT_ID, inventory.getFlightId());
+        buffer.putLong(base + DEPARTURE, departure);
+        buffer.putInt(base + SEAT_COUNT, size);
+        int descriptors = base + SLOT_HEADER_BYTES;
+        int statuses = descriptors + maxSeats * DESCRIPTOR_BYTES;
+        for (int i = 0; i < size; i++) {
+            Seat seat = inventory.seatAt(i);
+            if (!encodable(seat)) {
+                return false;
+            }
+            int at = descriptors + i * DESCRIPTOR_BYTES;
+            buffer.putLong(at, seat.getId() != null ? seat.getId() : 0L);
+            buffer.putShort(at + 8, seat.getRowNumber().shortValue());
+            byte[] column = seat.getColumnCode().getBytes(StandardCharsets.US_ASCII);
+            for (int c = 0; c < COLUMN_BYTES; c++) {
+                buffer.put(at + 10 + c, c < column.length ? column[c] : 0);
+            }
+            buffer.put(at + 13, (byte) seat.getSeatClass().ordinal());
+            buffer.put(at + 14, (byte) (seat.getPosition() != null ? seat.getPosition().ordinal() : -1));
+            buffer.put(at + 15, (byte) (seat.isExitRow() ? 1 : 0));
+            buffer.put(statuses + i, (byte) seat.getStatus().ordinal());
+        }
+        // No version until the next force has the descriptors and statuses on disk
+        buffer.putLong(base + INVENTORY_VERSION, -1L);
+        pendingVersions.put(inventory.getFlightId(), new PendingVersion(base, inventory.getInventoryVersion()));
+        buffer.putInt(base + STATE, STATE_VALID);
+        return true;
+    }
+
+    // Only seats whose number is exactly row + column can be rebuilt from a descriptor
+    private static boolean encodable(Seat seat) {
+        return seat.getRowNumber() != null && seat.getRowNumber() > 0 && seat.getRowNumber() <= Short.MAX_VALUE
+                && seat.getColumnCode() != null && !seat.getColumnCode().isEmpty()
+                && seat.getColumnCode().length() <= COLUMN_BYTES && seat.getSeatClass() != null
+                && seat.getSeatNumber().equals(seat.getRowNumber() + seat.getColumnCode());
+    }
+
+    private List<Seat> read(int base) {
+        int size = buffer.getInt(base + SEAT_COUNT);
+        if (size < 0 || size > maxSeats) {
+            return null;
+        }
+        int descriptors = base + SLOT_HEADER_BYTES;
+        int statuses = descriptors + maxSeats * DESCRIPTOR_BYTES;
+        List<Seat> seats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int at = descriptors + i * DESCRIPTOR_BYTES;
+            int seatClass = buffer.get(at + 13);
+            int position = buffer.get(at + 14);
+            int status = buffer.get(statuses + i);
+            if (seatClass < 0 || seatClass >= SeatClass.values().length || position >= SeatPosition.values().length
+                    || status < 0 || status >= SeatStatus.values().length) {
+                return null;
+            }
+            StringBuilder column = new StringBuilder(COLUMN_BYTES);
+            for (int c = 0; c < COLUMN_BYTES && buffer.get(at + 10 + c) != 0; c++) {
+                column.append((char) buffer.get(at + 10 + c));
+            }
+            int row = buffer.getShort(at + 8);
+            Seat seat = new Seat(row + column.toString(), SeatClass.values()[seatClass], null);
+            seat.setId(buffer.getLong(at));
+            seat.setRowNumber(row);
+            seat.setColumnCode(column.toString());
+            seat.setPosition(position >= 0 ? SeatPosition.values()[position] : null);
+            seat.setExitRow(buffer.get(at + 15) == 1);
+            seat.setStatus(SeatStatus.values()[status]);
+            seats.add(seat);
+        }
+        return seats;
+    }
+
+    private int slotBase(int slot) {
+        return FILE_HEADER_BYTES + slot * slotBytes;
+    }
+
+    /**
+     * Mapped store statistics
+     */
+    public synchronized MappedStoreStatistics getStatistics() {
+        return new MappedStoreStatistics(enabled, slotCount, slotByFlight.size(), attached, skipped);
+    }
+
+    /**
+     * Writes the changes of one inventory into its slot; stops once the slot was given to another flight
+     */
+    private final class SlotSink implements InventorySink {
+        private final int base;
+        private final long flightId;
+
+        SlotSink(int base, long flightId) {
+            this.base = base;
+            this.flightId = flightId;
+        }
+
+        @Override
+        public void statusChanged(int index, SeatStatus status) {
+            if (buffer.getLong(base + FLIGHT_ID) == flightId) {
+                buffer.put(base + SLOT_HEADER_BYTES + maxSeats * DESCRIPTOR_BYTES + index, (byte) status.ordinal());
+            }
+        }
+
+        @Override
+        public void versionChanged(long inventoryVersion) {
+            if (buffer.getLong(base + FLIGHT_ID) == flightId) {
+                pendingVersions.put(flightId, new PendingVersion(base, inventoryVersion));
+            }
+        }
+    }
+
+    private static final class PendingVersion {
+        private final int base;
+        private final long version;
+
+        PendingVersion(int base, long version) {
+            this.base = base;
+            this.version = version;
+        }
+    }
+
+    /**
+     * A flight read back from the file
+     */
+    public static class MappedFlight {
+        private final Long flightId;
+        private final long inventoryVersion;
+        private final LocalDateTime departureTime;
+        private final List<Seat> seats;
+
+        public MappedFlight(Long flightId, long inventoryVersion, LocalDateTime departureTime, List<Seat> seats) {
+            this.flightId = flightId;
+            this.inventoryVersion = inventoryVersion;
+            this.departureTime = departureTime;
+            this.seats = seats;
+        }
+
+        public Long getFlightId() { return flightId; }
+        public long getInventoryVersion() { return inventoryVersion; }
+        public LocalDateTime getDepartureTime() { return departureTime; }
+        public List<Seat> getSeats() { return seats; }
+    }
+
+    /**
+     * Inner class for mapped store statistics
+     */
+    public static class MappedStoreStatistics {
+        private final boolean enabled;
+        private final int slots;
+        private final int usedSlots;
+        private final long attached;
+        private final long skipped;
+
+        public MappedStoreStatistics(boolean enabled, int slots, int usedSlots, long attached, long skipped) {
+            this.enabled = enabled;
+            this.slots = slots;
+            this.usedSlots = usedSlots;
+            this.attached = attached;
+            this.skipped = skipped;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getSlots() { return slots; }
+        public int getUsedSlots() { return usedSlots; }
+        public long getAttached() { return attached; }
+        public long getSkipped() { return skipped; }
+    }
+}
@@ -1,5 +1,6 @@
 package com.kusm.service;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,11 +11,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.kusm.dto.flightDTO.SeatDTO;
 import com.kusm.model.Flight;
 import com.kusm.model.Payment;
 import com.kusm.model.Reservation;
 import com.kusm.model.Seat;
 import com.kusm.repository.ReservationRepository;
+import com.kusm.service.SeatInventory.SeatMapSnapshot;
+import com.kusm.service.SeatService.GroupAllocation;
 
 @Service
 public class ReservationService {
@@ -33,6 +37,12 @@ public class ReservationService {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private FlightLockManager flightLockManager;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
     @Transactional
     public Reservation createReservationWithPayment(Reservation reservation, Long flightId, 
             String cardNumber, String cardHolderName) {
@@ -85,6 +95,9 @@ public class ReservationService {
                     logger.info("Payment successful with transaction ID: {}", payment.getTransactionId());
                     savedReservation.setStatus(Reservation.BookingStatus.CONFIRMED);
                     
+                    // Serialize seat allocation on this flight until the transaction completes
+                    flightLockManager.lockForTransaction(flightId);
+
                     // Auto-assign a seat
                     logger.info("Attempting to auto-assign seat for reservation ID: {} with preferred class: {}",
                             savedReservation.getId(), reservation.getPreferredSeatClass());
@@ -96,7 +109,7 @@ public class ReservationService {
                             assignedSeat.getSeatNumber(), assignedSeat.getId(), savedReservation.getBookingReference());
 
                     // Update flight's available seats count
-                    flightService.updateAvailableSeats(flightId, 1);
+                    flightService.takeAvailableSeats(flightId, 1);
 
                     // Save updated reservation
                     savedReservation = reservationRepository.save(savedReservation);
@@ -182,6 +195,9 @@ public class ReservationService {
                 logger.info("Reservation saved with ID: {}", savedReservation.getId());
 
                 try {
+                    // Serialize seat allocation on this flight until the transaction completes
+                    flightLockManager.lockForTransaction(flightId);
+
                     // Auto-assign a seat
                     logger.info("Attempting to auto-assign seat for reservation ID: {} with preferred class: {}",
                             savedReservation.getId(), reservation.getPreferredSeatClass());
@@ -193,7 +209,7 @@ public class ReservationService {
                             assignedSeat.getSeatNumber(), assignedSeat.getId(), savedReservation.getBookingReference());
 
                     // Update flight's available seats count
-                    flightService.updateAvailableSeats(flightId, 1);
+                    flightService.takeAvailableSeats(flightId, 1);
 
                     // Force a flush to ensure changes are persisted
                     reservationRepository.flush();
@@ -234,6 +250,15 @@ public class ReservationService {
     @Transactional
     public Reservation createReservationWithSpecificSeat(Reservation reservation, Long flightId, 
             String seatNumber, String cardNumber, String cardHolderName) {
+        return createReservationWithSpecificSeat(reservation, flightId, seatNumber, null, cardNumber, cardHolderName);
+    }
+
+    /**
+     * Book a specific seat. With a hold token the hold is converted into the booking directly.
+     */
+    @Transactional
+    public Reservation createReservationWithSpecificSeat(Reservation reservation, Long flightId, 
+            String seatNumber, String holdToken, String cardNumber, String cardHolderName) {
         
         logger.info("Creating reservation with specific seat {} and payment for flight ID: {}", seatNumber, flightId);
 
@@ -267,12 +292,17 @@ public class ReservationService {
                     // Payment successful - confirm reservation and assign specific seat
                     savedReservation.setStatus(Reservation.BookingStatus.CONFIRMED);
                     
-                    // Assign specific seat
-                    Seat assignedSeat = seatService.assignSeat(flightId, seatNumber, savedReservation);
+                    // Serialize seat allocation on this flight until the transaction completes
+                    flightLockManager.lockForTransaction(flightId);
+
+                    // Assign specific seat, converting the client's hold if it has one
+                    Seat assignedSeat = holdToken != null
+                            ? seatHoldService.convertHold(flightId, seatNumber, holdToken, savedReservation)
+                            : seatService.assignSeat(flightId, seatNumber, savedReservation);
                     logger.info("Assigned specific seat: {} to reservation: {}", seatNumber, savedReservation.getBookingReference());
 
                     // Update flight's available seats count
-                    flightService.updateAvailableSeats(flightId, 1);
+                    flightService.takeAvailableSeats(flightId, 1);
 
                     // Save updated reservation
                     savedReservation = reservationRepository.save(savedReservation);
@@ -304,6 +334,90 @@ public class ReservationService {
         throw new RuntimeException("Flight not available");
     }
 
+    /**
+     * Book seats for a whole group on one reservation. The seats are allocated together,
+     * side by side where possible (see SeatService.allocateGroupSeats), and paid in one payment.
+     */
+    @Transactional
+    public Reservation createGroupReservationWithPayment(Reservation reservation, Long flightId, int groupSize,
+            boolean allowSplit, String cardNumber, String cardHolderName) {
+        
+        logger.info("Creating group reservation for {} passengers on flight ID: {}", groupSize, flightId);
+
+        Optional<Flight> flightOpt = flightService.getFlightById(flightId);
+        if (flightOpt.isEmpty()) {
+            logger.error("Flight not found with ID: {}", flightId);
+            throw new RuntimeException("Flight not available");
+        }
+        Flight flight = flightOpt.get();
+
+        // Initialize seats for the flight if not already done
+        seatService.initializeSeatsForFlight(flight);
+
+        long availableSeats = seatService.getAvailableSeatCount(flightId);
+        if (availableSeats < groupSize) {
+            logger.warn("Only {} seats left on flight {} for a group of {}", availableSeats, flightId, groupSize);
+            throw new RuntimeException("Not enough available seats on this flight");
+        }
+
+        BigDecimal totalAmount = flight.getPrice().multiply(BigDecimal.valueOf(groupSize));
+        reservation.setFlight(flight);
+        reservation.setBookingReference(generateBookingReference());
+        reservation.setTotalAmount(totalAmount);
+        reservation.setStatus(Reservation.BookingStatus.PENDING);
+
+        Reservation savedReservation = reservationRepository.save(reservation);
+        logger.info("Group reservation saved with ID: {}", savedReservation.getId());
+
+        try {
+            Payment payment = paymentService.processPayment(
+                savedReservation.getId(), 
+                cardNumber, 
+                cardHolderName, 
+                totalAmount
+            );
+
+            if (payment != null && payment.isSuccessful()) {
+                savedReservation.setStatus(Reservation.BookingStatus.CONFIRMED);
+
+                // Serialize seat allocation on this flight until the transaction completes
+                flightLockManager.lockForTransaction(flightId);
+
+                GroupAllocation allocation = seatService.allocateGroupSeats(flightId, savedReservation,
+                        reservation.getPreferredSeatClass(), groupSize, allowSplit);
+                logger.info("Allocated {} seats in {} row(s) to reservation {}", allocation.getSeats().size(),
+                        allocation.getRows(), savedReservation.getBookingReference());
+
+                // Update flight's available seats count
+                flightService.takeAvailableSeats(flightId, groupSize);
+
+                savedReservation = reservationRepository.save(savedReservation);
+                reservationRepository.flush();
+
+                Reservation finalReservation = getReservationWithSeats(savedReservation.getId());
+                if (finalReservation.getSeats().isEmpty()) {
+                    // Fallback - manually fetch seats
+                    finalReservation.setSeats(seatService.getSeatsByReservationId(finalReservation.getId()));
+                }
+                return finalReservation;
+            } else {
+                String failureReason = (payment != null) ? payment.getFailureReason() : "Payment returned null";
+                logger.warn("Payment failed for group reservation {}: {}", 
+                    savedReservation.getBookingReference(), failureReason);
+
+                savedReservation.setStatus(Reservation.BookingStatus.CANCELLED);
+                reservationRepository.save(savedReservation);
+                throw new RuntimeException("Payment failed. Reservation has been cancelled.");
+            }
+        } catch (RuntimeException e) {
+            logger.error("Group reservation {} failed: {}", savedReservation.getBookingReference(), e.getMessage());
+
+            savedReservation.setStatus(Reservation.BookingStatus.CANCELLED);
+            reservationRepository.save(savedReservation);
+            throw new RuntimeException("Group reservation failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get reservation with seats eagerly loaded
      */
@@ -395,15 +509,18 @@ public class ReservationService {
         Optional<Reservation> reservationOpt = reservationRepository.findByBookingReference(bookingReference);
         if (reservationOpt.isPresent()) {
             Reservation reservation = reservationOpt.get();
+            if (reservation.getStatus() == Reservation.BookingStatus.CANCELLED) {
+                throw new IllegalStateException("Reservation " + bookingReference + " is already cancelled");
+            }
             reservation.setStatus(Reservation.BookingStatus.CANCELLED);
 
-            // Release assigned seats
-            seatService.releaseSeatsForReservation(reservation.getId());
+            // Release assigned seats (several for a group reservation, none for one that never got a seat)
+            int released = seatService.releaseSeatsForReservation(reservation.getId());
 
             // Free up the seat count in flight
-            Flight flight = reservation.getFlight();
-            flight.setAvailableSeats(flight.getAvailableSeats() + 1);
-            flightService.saveFlight(flight);
+            if (released > 0) {
+                flightService.releaseAvailableSeats(reservation.getFlight().getId(), released);
+            }
 
             reservationRepository.save(reservation);
             return true;
@@ -413,38 +530,80 @@ public class ReservationService {
 
     @Transactional
     public boolean changeSeat(String bookingReference, String newSeatNumber) {
+        return changeSeat(bookingReference, null, newSeatNumber);
+    }
+
+    /**
+     * Move one seat of a reservation to another seat. Group reservations must name the seat to give up
+     * (currentSeatNumber); their other seats and the flight's seat count are left as they are.
+     */
+    @Transactional
+    public boolean changeSeat(String bookingReference, String currentSeatNumber, String newSeatNumber) {
         Optional<Reservation> reservationOpt = reservationRepository.findByBookingReference(bookingReference);
         if (reservationOpt.isPresent()) {
             Reservation reservation = reservationOpt.get();
 
             if (reservation.getStatus() == Reservation.BookingStatus.CONFIRMED) {
                 try {
-                    // Release current seats
-                    seatService.releaseSeatsForReservation(reservation.getId());
+                    flightLockManager.lockForTransaction(reservation.getFlight().getId());
+
+                    // Release the seat being changed
+                    Seat currentSeat = seatToChange(reservation, currentSeatNumber);
+                    if (currentSeat != null) {
+                        seatService.releaseSeat(currentSeat.getId());
+                    }
 
                     // Assign new seat
                     seatService.assignSeat(reservation.getFlight().getId(), newSeatNumber, reservation);
 
                     return true;
                 } catch (RuntimeException e) {
-                    throw new RuntimeException("Seat change failed: " + e.getMessage());
+                    // Conflicts go back unchanged so BookingRetryPolicy retries them and callers answer 409
+                    if (BookingRetryPolicy.isConflict(e)) {
+                        throw e;
+                    }
+                    throw new RuntimeException("Seat change failed: " + e.getMessage(), e);
                 }
             }
         }
         return false;
     }
 
+    private Seat seatToChange(Reservation reservation, String currentSeatNumber) {
+        List<Seat> seats = seatService.getSeatsByReservationId(reservation.getId());
+        if (currentSeatNumber == null || currentSeatNumber.trim().isEmpty()) {
+            if (seats.size() > 1) {
+                throw new IllegalArgumentException("Reservation " + reservation.getBookingReference() + " holds "
+                        + seats.size() + " seats; name the seat to change");
+            }
+            return seats.isEmpty() ? null : seats.get(0);
+        }
+        String normalizedSeatNumber = currentSeatNumber.trim().toUpperCase();
+        return seats.stream()
+                .filter(seat -> seat.getSeatNumber().equals(normalizedSeatNumber))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Seat " + currentSeatNumber
+                        + " is not part of reservation " + reservation.getBookingReference()));
+    }
+
     /**
      * Get available seats for a flight
      */
-    public List<Seat> getAvailableSeatsForFlight(Long flightId) {
+    public List<SeatDTO> getAvailableSeatsForFlight(Long flightId) {
         return seatService.getAvailableSeats(flightId);
     }
 
     /**
      * Get seat map for a flight
      */
-    public List<List<Seat>> getSeatMapForFlight(Long flightId) {
+    public List<List<SeatDTO>> getSeatMapForFlight(Long flightId) {
         return seatService.getSeatMap(flightId);
     }
+    
+    /**
+     * Get seat map for a flight with its version
+     */
+    public SeatMapSnapshot getSeatMapSnapshotForFlight(Long flightId) {
+        return seatService.getSeatMapSnapshot(flightId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.kusm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.kusm.repository.SeatBatchRepository;
+
+/**
+ * Fills in seat_row and seat_column for seats created before they were persisted. Runs once after startup
+ * and walks the seat ids in fixed-size ranges, each range in its own short statement, so the migration
+ * never holds locks on more than one batch of seats at a time.
+ */
+@Component
+public class SeatCoordinateBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatCoordinateBackfill.class);
+
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+
+    @Value("${booking.seats.backfill-enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.seats.backfill-batch-size:5000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            logger.error("Seat row/column backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Backfill all seats missing their row and column; returns the number of updated seats
+     */
+    public long backfill() {
+        long[] range = seatBatchRepository.findSeatIdRangeWithoutCoordinates();
+        if (range == null) {
+            return 0;
+        }
+        int step = Math.max(1, batchSize);
+        long updated = 0;
+        for (long from = range[0]; from <= range[1]; from += step) {
+            updated += seatBatchRepository.backfillCoordinates(from, Math.min(range[1], from + step - 1));
+        }
+        logger.info("Backfilled row and column of {} seats (ids {} to {})", updated, range[0], range[1]);
+        return updated;
+    }
+}
@@ -0,0 +1,97 @@
+package com.kusm.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.SeatInventory.FlightInventory;
+import com.kusm.service.SeatInventory.SeatCounts;
+
+/**
+ * Periodically compares the seat counters of every loaded flight with one grouped count over the seats
+ * table and reloads flights whose counters drifted (e.g. after a direct database change).
+ */
+@Component
+public class SeatCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatCountReconciler.class);
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Value("${booking.seats.reconcile-batch-size:200}")
+    private int batchSize;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong repairs = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${booking.seats.reconcile-interval-ms:300000}",
+               initialDelayString = "${booking.seats.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.error("Seat count reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check all loaded flights and return the number of flights that were repaired
+     */
+    public int reconcile() {
+        List<Long> flightIds = new ArrayList<>(seatInventory.loadedFlightIds());
+        int repaired = 0;
+        for (int from = 0; from < flightIds.size(); from += batchSize) {
+            List<Long> batch = flightIds.subList(from, Math.min(flightIds.size(), from + batchSize));
+            Map<Long, List<Object[]>> rowsByFlight = new HashMap<>();
+            for (Object[] row : seatRepository.countByFlightIdsGroupedByClassAndStatus(batch)) {
+                rowsByFlight.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+            }
+            for (Long flightId : batch) {
+                if (reconcile(flightId, SeatCounts.fromRows(rowsByFlight.getOrDefault(flightId, List.of()), 1))) {
+                    repaired++;
+                }
+            }
+        }
+        runs.incrementAndGet();
+        repairs.addAndGet(repaired);
+        if (repaired > 0) {
+            logger.warn("Seat count reconciliation repaired {} of {} flights", repaired, flightIds.size());
+        }
+        return repaired;
+    }
+
+    private boolean reconcile(Long flightId, SeatCounts databaseCounts) {
+        FlightInventory inventory = seatInventory.getIfLoaded(flightId);
+        if (inventory == null || inventory.counts().equals(databaseCounts)) {
+            return false;
+        }
+        // A booking may have committed between the count and the comparison: check this flight once more
+        long version = inventory.getVersion();
+        SeatCounts recounted = SeatCounts.fromRows(seatRepository.countByFlightIdGroupedByClassAndStatus(flightId), 0);
+        if (inventory.getVersion() != version || inventory.counts().equals(recounted)) {
+            return false;
+        }
+        logger.warn("Seat counters of flight {} drifted from the seats table: memory {} vs database {}",
+                flightId, inventory.counts(), recounted);
+        seatInventory.invalidate(flightId);
+        return true;
+    }
+
+    public long getRuns() { return runs.get(); }
+
+    public long getRepairs() { return repairs.get(); }
+}
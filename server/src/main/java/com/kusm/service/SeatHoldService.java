@@ -0,0 +1,266 @@
+package com.kusm.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.repository.ManagedEntityRefresher;
+import com.kusm.repository.SeatRepository;
+import com.kusm.utils.HashedTimerWheel;
+import com.kusm.utils.TransactionUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Temporary seat holds. A held seat is reserved for one client until its hold expires,
+ * which gives the user a guaranteed seat while they enter payment details.
+ * Expiry is driven by a hashed timer wheel instead of periodic table scans.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ManagedEntityRefresher managedEntities;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.hold.ttl-seconds:600}")
+    private long defaultTtlSeconds;
+
+    @Value("${booking.hold.max-ttl-seconds:1800}")
+    private long maxTtlSeconds;
+
+    @Value("${booking.hold.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${booking.hold.wheel-size:512}")
+    private int wheelSize;
+
+    private final Map<String, HashedTimerWheel.Timeout> expiries = new ConcurrentHashMap<>();
+    private ExecutorService expiryExecutor;
+    private HashedTimerWheel timerWheel;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        expiryExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timerWheel = new HashedTimerWheel("seat-hold-timer", tickMs, TimeUnit.MILLISECONDS, wheelSize, expiryExecutor);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timerWheel.close();
+        expiryExecutor.shutdown();
+    }
+
+    /**
+     * Re-arm expiry timers for holds that were placed before this instance started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleExistingHolds() {
+        List<Seat> heldSeats = seatRepository.findByStatus(SeatStatus.HELD);
+        for (Seat seat : heldSeats) {
+            if (seat.getHoldToken() != null && seat.getHoldExpiresAt() != null) {
+                scheduleExpiry(seat.getFlight().getId(), seat.getSeatNumber(), seat.getHoldToken(), seat.getHoldExpiresAt());
+            }
+        }
+        if (!heldSeats.isEmpty()) {
+            logger.info("Scheduled expiry for {} existing seat holds", heldSeats.size());
+        }
+    }
+
+    /**
+     * Put an available seat on hold for the given number of seconds (default TTL when null)
+     */
+    @Transactional
+    public SeatHold holdSeat(Long flightId, String seatNumber, Long ttlSeconds) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        if (seatNumber == null || seatNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Seat number cannot be null or empty");
+        }
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold duration must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+
+        String normalizedSeatNumber = seatNumber.trim().toUpperCase();
+        SeatStatus knownStatus = seatInventory.get(flightId).statusOf(normalizedSeatNumber);
+        if (knownStatus == null) {
+            throw new IllegalArgumentException("Seat " + seatNumber + " does not exist on flight " + flightId);
+        }
+        if (knownStatus != SeatStatus.AVAILABLE) {
+            throw new IllegalStateException("Seat " + seatNumber + " is not available (current status: " + knownStatus + ")");
+        }
+
+        String holdToken = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttl);
+        int updated = seatRepository.holdSeat(flightId, normalizedSeatNumber, holdToken, expiresAt,
+                SeatStatus.AVAILABLE, SeatStatus.HELD);
+        if (updated == 0) {
+            seatInventory.refreshSeat(flightId, normalizedSeatNumber);
+            throw new IllegalStateException("Seat " + seatNumber + " is no longer available");
+        }
+
+        refreshManagedSeat(flightId, normalizedSeatNumber);
+        seatInventory.recordTransition(flightId, normalizedSeatNumber, SeatStatus.AVAILABLE, SeatStatus.HELD, null);
+        TransactionUtils.afterCommit(() -> scheduleExpiry(flightId, normalizedSeatNumber, holdToken, expiresAt));
+        logger.info("Held seat {} on flight {} until {}", normalizedSeatNumber, flightId, expiresAt);
+
+        return new SeatHold(flightId, normalizedSeatNumber, holdToken, expiresAt);
+    }
+
+    /**
+     * Turn a hold into a booking with a single conditional update on the hold token
+     */
+    @Transactional
+    public Seat convertHold(Long flightId, String seatNumber, String holdToken, Reservation reservation) {
+        if (flightId == null || seatNumber == null || holdToken == null) {
+            throw new IllegalArgumentException("Flight ID, seat number and hold token cannot be null");
+        }
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation cannot be null");
+        }
+
+        String normalizedSeatNumber = seatNumber.trim().toUpperCase();
+        int updated = seatRepository.convertHold(flightId, normalizedSeatNumber, holdToken, reservation,
+                LocalDateTime.now(), SeatStatus.HELD, SeatStatus.BOOKED);
+        if (updated == 0) {
+            throw new IllegalStateException("Hold on seat " + seatNumber + " has expired or is not valid");
+        }
+
+        refreshManagedSeat(flightId, normalizedSeatNumber);
+        seatInventory.recordTransition(flightId, normalizedSeatNumber, SeatStatus.HELD, SeatStatus.BOOKED,
+                reservation.getId());
+        TransactionUtils.afterCommit(() -> cancelExpiry(holdToken));
+        logger.info("Converted hold on seat {} to reservation {}", normalizedSeatNumber, reservation.getBookingReference());
+
+        Seat seat = seatInventory.get(flightId).seat(normalizedSeatNumber);
+        seat.setStatus(SeatStatus.BOOKED);
+        seat.setReservation(reservation);
+        return seat;
+    }
+
+    /**
+     * Release a hold before it expires. Returns false if the hold no longer exists.
+     */
+    @Transactional
+    public boolean releaseHold(Long flightId, String seatNumber, String holdToken) {
+        if (flightId == null || seatNumber == null || holdToken == null) {
+            throw new IllegalArgumentException("Flight ID, seat number and hold token cannot be null");
+        }
+
+        String normalizedSeatNumber = seatNumber.trim().toUpperCase();
+        int updated = seatRepository.releaseHold(flightId, normalizedSeatNumber, holdToken,
+                SeatStatus.HELD, SeatStatus.AVAILABLE);
+        if (updated == 0) {
+            return false;
+        }
+
+        refreshManagedSeat(flightId, normalizedSeatNumber);
+        seatInventory.recordTransition(flightId, normalizedSeatNumber, SeatStatus.HELD, SeatStatus.AVAILABLE, null);
+        TransactionUtils.afterCommit(() -> cancelExpiry(holdToken));
+        return true;
+    }
+
+    // The hold updates leave the persistence context alone; re-read the seat in case it is loaded there
+    private void refreshManagedSeat(Long flightId, String seatNumber) {
+        managedEntities.refresh(Seat.class, seatInventory.get(flightId).seatId(seatNumber));
+    }
+
+    public int getActiveHoldCount() {
+        return timerWheel.size();
+    }
+
+    private void scheduleExpiry(Long flightId, String seatNumber, String holdToken, LocalDateTime expiresAt) {
+        long delayMs = Math.max(0, Duration.between(LocalDateTime.now(), expiresAt).toMillis());
+        HashedTimerWheel.Timeout timeout = timerWheel.schedule(
+                () -> expire(flightId, seatNumber, holdToken), delayMs, TimeUnit.MILLISECONDS);
+        expiries.put(holdToken, timeout);
+    }
+
+    private void cancelExpiry(String holdToken) {
+        HashedTimerWheel.Timeout timeout = expiries.remove(holdToken);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private void expire(Long flightId, String seatNumber, String holdToken) {
+        expiries.remove(holdToken);
+        try {
+            Integer released = transactionTemplate.execute(status -> {
+                int updated = seatRepository.releaseHold(flightId, seatNumber, holdToken,
+                        SeatStatus.HELD, SeatStatus.AVAILABLE);
+                if (updated > 0) {
+                    seatInventory.recordTransition(flightId, seatNumber, SeatStatus.HELD, SeatStatus.AVAILABLE, null);
+                }
+                return updated;
+            });
+            if (released != null && released > 0) {
+                logger.info("Hold on seat {} of flight {} expired", seatNumber, flightId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to expire hold on seat {} of flight {}, retrying: {}", seatNumber, flightId, e.getMessage());
+            scheduleExpiry(flightId, seatNumber, holdToken, LocalDateTime.now().plusSeconds(30));
+        }
+    }
+
+    /**
+     * Inner class describing an active seat hold
+     */
+    public static class SeatHold {
+        private final Long flightId;
+        private final String seatNumber;
+        private final String holdToken;
+        private final LocalDateTime expiresAt;
+
+        public SeatHold(Long flightId, String seatNumber, String holdToken, LocalDateTime expiresAt) {
+            this.flightId = flightId;
+            this.seatNumber = seatNumber;
+            this.holdToken = holdToken;
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getFlightId() { return flightId; }
+        public String getSeatNumber() { return seatNumber; }
+        public String getHoldToken() { return holdToken; }
+        public LocalDateTime getExpiresAt() { return expiresAt; }
+    }
+}
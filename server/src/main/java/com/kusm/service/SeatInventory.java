@@ -0,0 +1,1059 @@
+package com.kusm.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.model.Flight;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatPosition;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.utils.TransactionUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory seat inventory, one compact bitmap per status and per seat class for each flight.
+ * Loaded lazily from the seats table (or restored from a snapshot on startup, see SeatSnapshotService) and kept
+ * in sync by SeatService after every committed change; every change is also written to the SeatJournal.
+ */
+@Component
+public class SeatInventory {
+
+    // Versions come from one clock seeded with the start time, so they keep increasing across
+    // inventory reloads and restarts and a version (or ETag) is never reused for different contents
+    private static final AtomicLong VERSION_CLOCK = new AtomicLong(System.currentTimeMillis() * 1000);
+    private static final int VERSION_QUERY_BATCH = 500;
+    private static final int LOAD_ATTEMPTS = 3;
+    private static final int CHANGE_STAMP_STRIPES = 1024;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SeatJournal seatJournal;
+
+    @Autowired
+    private MappedSeatStore mappedSeatStore;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, FlightInventory> flights = new ConcurrentHashMap<>();
+    // Committed changes per flight stripe, lets a lazy load detect changes it may have missed
+    private final AtomicLongArray changeStamps = new AtomicLongArray(CHANGE_STAMP_STRIPES);
+    private TransactionTemplate committedRead;
+    private TransactionTemplate versionedRead;
+
+    @PostConstruct
+    void init() {
+        // Loads run in their own transaction so they never see (and cache) a caller's uncommitted rows
+        committedRead = new TransactionTemplate(transactionManager);
+        committedRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        committedRead.setReadOnly(true);
+        versionedRead = new TransactionTemplate(transactionManager);
+        versionedRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        versionedRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        versionedRead.setReadOnly(true);
+    }
+
+    /**
+     * Get the inventory for a flight, loading it from the database on first access.
+     * Flights without materialized seats are not cached so they are picked up once initialized.
+     */
+    public FlightInventory get(Long flightId) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        FlightInventory inventory = flights.get(flightId);
+        if (inventory != null) {
+            return inventory;
+        }
+
+        FlightInventory loaded = null;
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+            long stamp = changeStamps.get(stripe(flightId));
+            loaded = mappedSeatStore.isEnabled() ? loadVersioned(flightId) : loadCommitted(flightId);
+            if (loaded.isEmpty()) {
+                return loaded;
+            }
+            FlightInventory existing = flights.putIfAbsent(flightId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            // A change applied while loading found no inventory to update. The load may predate it,
+            // so only keep the copy when no change of the flight committed in the meantime.
+            if (changeStamps.get(stripe(flightId)) == stamp) {
+                if (mappedSeatStore.isEnabled()) {
+                    mappedSeatStore.attach(loaded, loaded.departureTime);
+                }
+                return loaded;
+            }
+            flights.remove(flightId, loaded);
+        }
+        // Still racing with writes: serve the last copy without caching it
+        return loaded;
+    }
+
+    private FlightInventory loadCommitted(Long flightId) {
+        return committedRead.execute(status ->
+                new FlightInventory(flightId, seatRepository.findByFlightId(flightId), eventPublisher::publishEvent));
+    }
+
+    // Seats and inventory version from one database snapshot, so the version names exactly these contents
+    private FlightInventory loadVersioned(Long flightId) {
+        return versionedRead.execute(status -> {
+            Optional<Flight> flight = flightRepository.findById(flightId);
+            List<Seat> seats = seatRepository.findByFlightId(flightId);
+            FlightInventory inventory = new FlightInventory(flightId, seats, eventPublisher::publishEvent);
+            if (flight.isPresent()) {
+                inventory.initInventoryVersion(flight.get().getInventoryVersion());
+                inventory.departureTime = flight.get().getDepartureTime();
+            }
+            return inventory;
+        });
+    }
+
+    // Called before a committed change looks up the cached inventory, see get
+    private void stampChange(Long flightId) {
+        changeStamps.incrementAndGet(stripe(flightId));
+    }
+
+    private static int stripe(Long flightId) {
+        return Long.hashCode(flightId) & (CHANGE_STAMP_STRIPES - 1);
+    }
+
+    /**
+     * Register the newly created seats of a flight: journal their initial status and replace the
+     * flight's inventory once the transaction commits
+     */
+    public void load(Long flightId, List<Seat> seats) {
+        SeatJournal.TransactionBatch batch = seatJournal.appendCreated(flightId, seats);
+        LocalDateTime departure = !seats.isEmpty() && seats.get(0).getFlight() != null
+                ? seats.get(0).getFlight().getDepartureTime() : null;
+        TransactionUtils.afterCommit(() -> {
+            stampChange(flightId);
+            FlightInventory inventory = new FlightInventory(flightId, seats, eventPublisher::publishEvent);
+            inventory.initInventoryVersion(batch.versionOf(flightId));
+            flights.put(flightId, inventory);
+            mappedSeatStore.attach(inventory, departure);
+        });
+    }
+
+    /**
+     * Install the flights kept in the memory-mapped store whose version still matches the database.
+     * Slots of flights that changed in the meantime are released; those flights load on first access.
+     */
+    public int restoreFromMappedStore() {
+        List<MappedSeatStore.MappedFlight> mapped = mappedSeatStore.readFlights();
+        if (mapped.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Long> databaseVersions = new HashMap<>(mapped.size() * 2);
+        for (int from = 0; from < mapped.size(); from += VERSION_QUERY_BATCH) {
+            List<Long> flightIds = new ArrayList<>();
+            mapped.subList(from, Math.min(mapped.size(), from + VERSION_QUERY_BATCH))
+                    .forEach(flight -> flightIds.add(flight.getFlightId()));
+            for (Object[] row : flightRepository.findInventoryVersions(flightIds)) {
+                databaseVersions.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        int restored = 0;
+        for (MappedSeatStore.MappedFlight flight : mapped) {
+            Long databaseVersion = databaseVersions.get(flight.getFlightId());
+            if (databaseVersion == null || databaseVersion != flight.getInventoryVersion()) {
+                mappedSeatStore.release(flight.getFlightId());
+                continue;
+            }
+            FlightInventory inventory = new FlightInventory(flight.getFlightId(), flight.getSeats(),
+                    eventPublisher::publishEvent);
+            inventory.initInventoryVersion(flight.getInventoryVersion());
+            if (flights.putIfAbsent(flight.getFlightId(), inventory) == null) {
+                mappedSeatStore.attach(inventory, flight.getDepartureTime());
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Install an inventory rebuilt elsewhere (snapshot replay) unless the flight is already loaded
+     */
+    public boolean restore(Long flightId, List<Seat> seats) {
+        return flights.putIfAbsent(flightId, new FlightInventory(flightId, seats, eventPublisher::publishEvent)) == null;
+    }
+
+    /**
+     * Drop the cached inventory so the next access reloads it from the database
+     */
+    public void invalidate(Long flightId) {
+        flights.remove(flightId);
+    }
+
+    /**
+     * The cached inventory of a flight, or null when it is not loaded
+     */
+    public FlightInventory getIfLoaded(Long flightId) {
+        return flights.get(flightId);
+    }
+
+    public Set<Long> loadedFlightIds() {
+        return Set.copyOf(flights.keySet());
+    }
+
+    public boolean isLoaded(Long flightId) {
+        return flights.containsKey(flightId);
+    }
+
+    /**
+     * Journal a seat status change and apply it to the cached inventory once the surrounding
+     * transaction commits
+     */
+    public void recordTransition(Long flightId, String seatNumber, SeatStatus previousStatus, SeatStatus newStatus,
+                                 Long reservationId) {
+        SeatJournal.TransactionBatch batch = seatJournal.append(flightId, seatNumber, previousStatus, newStatus,
+                reservationId);
+        TransactionUtils.afterCommit(() -> {
+            stampChange(flightId);
+            FlightInventory inventory = flights.get(flightId);
+            if (inventory != null && !inventory.setStatus(seatNumber, newStatus, batch.versionOf(flightId))) {
+                // Unknown seat or missed commit, the cached copy is out of date
+                invalidate(flightId);
+            }
+        });
+    }
+
+    /**
+     * Record the same status change for many seats with one commit callback and one inventory lock
+     */
+    public void recordTransitions(Long flightId, List<String> seatNumbers, SeatStatus previousStatus,
+                                  SeatStatus newStatus) {
+        if (seatNumbers.isEmpty()) {
+            return;
+        }
+        SeatJournal.TransactionBatch batch = seatJournal.append(flightId, seatNumbers, previousStatus, newStatus);
+        TransactionUtils.afterCommit(() -> {
+            stampChange(flightId);
+            FlightInventory inventory = flights.get(flightId);
+            if (inventory != null && !inventory.setStatuses(seatNumbers, newStatus, batch.versionOf(flightId))) {
+                invalidate(flightId);
+            }
+        });
+    }
+
+    /**
+     * Re-read the status of a single seat after a conditional update missed, so the cached copy catches up.
+     * The read runs once the caller's transaction commits and outside of it: inside, it could see rows the
+     * transaction itself changed and that may still roll back.
+     */
+    public void refreshSeat(Long flightId, String seatNumber) {
+        TransactionUtils.afterCommit(() -> {
+            Optional<SeatStatus> currentStatus = committedRead.execute(status ->
+                    seatRepository.findStatusByFlightIdAndSeatNumber(flightId, seatNumber));
+            stampChange(flightId);
+            FlightInventory inventory = flights.get(flightId);
+            if (inventory != null && (currentStatus.isEmpty() || !inventory.setStatus(seatNumber, currentStatus.get()))) {
+                invalidate(flightId);
+            }
+        });
+    }
+
+    /**
+     * Receives every status change of one flight inventory after it was attached (see MappedSeatStore)
+     */
+    interface InventorySink {
+        void statusChanged(int index, SeatStatus status);
+
+        void versionChanged(long inventoryVersion);
+    }
+
+    /**
+     * Bitmap-backed seat inventory of a single flight. Seat indexes follow seat map order
+     * (row, then letter), so iterating a bitmap yields seats in seat number order.
+     */
+    public static final class FlightInventory {
+
+        private static final int PREFERENCE_RANKS = 3;
+        private static final int MAX_PENDING_VERSIONS = 64;
+
+        private final Long flightId;
+        private final long[] seatIds;
+        private final String[] seatNumbers;
+        private final int[] rows;
+        private final String[] columns;
+        private final SeatClass[] seatClasses;
+        private final SeatStatus[] statuses;
+        private final SeatPosition[] positions;
+        private final Map<String, Integer> indexBySeatNumber;
+        private final Map<SeatStatus, BitSet> byStatus = new EnumMap<>(SeatStatus.class);
+        private final Map<SeatClass, BitSet> byClass = new EnumMap<>(SeatClass.class);
+        private final BitSet windowSeats;
+        private final BitSet aisleSeats;
+        private final BitSet exitRowSeats;
+        // Free lists for auto-assignment: available seats per preference rank (window, aisle, other),
+        // for all classes and per class
+        private final int[] preferenceRanks;
+        private final BitSet[] availableByRank = new BitSet[PREFERENCE_RANKS];
+        private final Map<SeatClass, BitSet[]> availableByClassAndRank = new EnumMap<>(SeatClass.class);
+        // Per-row occupancy bitmasks for group allocation, bit = column within the row.
+        // Only the first 64 seats of a row take part in group allocation.
+        private final int[] rowOrdinals;
+        private final int[] rowStarts;
+        private final long[] rowAvailable;
+        private final long[] rowAisles;
+        private final Map<SeatClass, long[]> rowClasses = new EnumMap<>(SeatClass.class);
+        // Seat counters by status and class, maintained on every change
+        private final SeatCounts.Builder counts = new SeatCounts.Builder();
+        private long version;
+        private SeatMapSnapshot seatMapSnapshot;
+        private final Consumer<SeatChange> changeListener;
+        // Database inventory version (flights.inventory_version) the contents reflect, -1 when unknown.
+        // Commits whose callbacks run out of order wait in pendingVersions until the gap closes.
+        private long inventoryVersion = -1;
+        private final TreeSet<Long> pendingVersions = new TreeSet<>();
+        private InventorySink sink;
+        // Departure read along with a versioned load, used to attach the memory-mapped slot
+        private LocalDateTime departureTime;
+
+        FlightInventory(Long flightId, List<Seat> seats, Consumer<SeatChange> changeListener) {
+            List<Seat> ordered = new ArrayList<>(seats);
+            ordered.sort(Comparator.comparingInt(FlightInventory::rowOf)
+                    .thenComparing(FlightInventory::columnOf));
+
+            int size = ordered.size();
+            this.flightId = flightId;
+            this.seatIds = new long[size];
+            this.seatNumbers = new String[size];
+            this.rows = new int[size];
+            this.columns = new String[size];
+            this.seatClasses = new SeatClass[size];
+            this.statuses = new SeatStatus[size];
+            this.positions = new SeatPosition[size];
+            this.indexBySeatNumber = new HashMap<>(size * 2);
+            this.windowSeats = new BitSet(size);
+            this.aisleSeats = new BitSet(size);
+            this.exitRowSeats = new BitSet(size);
+            this.preferenceRanks = new int[size];
+            this.version = VERSION_CLOCK.incrementAndGet();
+            this.changeListener = changeListener;
+
+            for (SeatStatus status : SeatStatus.values()) {
+                byStatus.put(status, new BitSet(size));
+            }
+            for (SeatClass seatClass : SeatClass.values()) {
+                byClass.put(seatClass, new BitSet(size));
+                BitSet[] byRank = new BitSet[PREFERENCE_RANKS];
+                for (int rank = 0; rank < PREFERENCE_RANKS; rank++) {
+                    byRank[rank] = new BitSet(size);
+                }
+                availableByClassAndRank.put(seatClass, byRank);
+            }
+            for (int rank = 0; rank < PREFERENCE_RANKS; rank++) {
+                availableByRank[rank] = new BitSet(size);
+            }
+
+            for (int i = 0; i < size; i++) {
+                Seat seat = ordered.get(i);
+                seatIds[i] = seat.getId() != null ? seat.getId() : 0L;
+                seatNumbers[i] = seat.getSeatNumber();
+                rows[i] = rowOf(seat);
+                columns[i] = columnOf(seat);
+                seatClasses[i] = seat.getSeatClass();
+                statuses[i] = seat.getStatus();
+                positions[i] = seat.getPosition();
+                indexBySeatNumber.put(seat.getSeatNumber(), i);
+                byStatus.get(seat.getStatus()).set(i);
+                counts.add(seat.getStatus(), seat.getSeatClass(), 1);
+                if (seat.getSeatClass() != null) {
+                    byClass.get(seat.getSeatClass()).set(i);
+                }
+                if (seat.isWindow()) {
+                    windowSeats.set(i);
+                    preferenceRanks[i] = 0;
+                } else if (seat.isAisle()) {
+                    aisleSeats.set(i);
+                    preferenceRanks[i] = 1;
+                } else {
+                    preferenceRanks[i] = 2;
+                }
+                if (seat.isExitRow()) {
+                    exitRowSeats.set(i);
+                }
+                if (seat.getStatus() == SeatStatus.AVAILABLE) {
+                    updateFreeLists(i, true);
+                }
+            }
+
+            this.rowOrdinals = new int[size];
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || rows[i] != rows[i - 1]) {
+                    starts.add(i);
+                }
+                rowOrdinals[i] = starts.size() - 1;
+            }
+            this.rowStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+            this.rowAvailable = new long[rowStarts.length];
+            this.rowAisles = new long[rowStarts.length];
+            for (SeatClass seatClass : SeatClass.values()) {
+                rowClasses.put(seatClass, new long[rowStarts.length]);
+            }
+            for (int i = 0; i < size; i++) {
+                int column = i - rowStarts[rowOrdinals[i]];
+                if (column >= Long.SIZE) {
+                    continue;
+                }
+                long bit = 1L << column;
+                if (statuses[i] == SeatStatus.AVAILABLE) {
+                    rowAvailable[rowOrdinals[i]] |= bit;
+                }
+                if (seatClasses[i] != null) {
+                    rowClasses.get(seatClasses[i])[rowOrdinals[i]] |= bit;
+                }
+                // Two neighbouring aisle seats have the aisle between them
+                if (i + 1 < size && rowOrdinals[i + 1] == rowOrdinals[i]
+                        && preferenceRanks[i] == 1 && preferenceRanks[i + 1] == 1) {
+                    rowAisles[rowOrdinals[i]] |= bit;
+                }
+            }
+        }
+
+        // Seats not yet backfilled by SeatCoordinateBackfill fall back to parsing the seat number
+        private static int rowOf(Seat seat) {
+            return seat.getRowNumber() != null ? seat.getRowNumber() : parseRow(seat.getSeatNumber());
+        }
+
+        private static String columnOf(Seat seat) {
+            if (seat.getColumnCode() != null) {
+                return seat.getColumnCode();
+            }
+            String seatNumber = seat.getSeatNumber();
+            int start = 0;
+            while (start < seatNumber.length() && Character.isDigit(seatNumber.charAt(start))) {
+                start++;
+            }
+            return seatNumber.substring(start);
+        }
+
+        private static int parseRow(String seatNumber) {
+            int end = 0;
+            while (end < seatNumber.length() && Character.isDigit(seatNumber.charAt(end))) {
+                end++;
+            }
+            return end > 0 ? Integer.parseInt(seatNumber.substring(0, end)) : Integer.MAX_VALUE;
+        }
+
+        public Long getFlightId() { return flightId; }
+
+        public int size() { return seatNumbers.length; }
+
+        public boolean isEmpty() { return seatNumbers.length == 0; }
+
+        public synchronized long getVersion() { return version; }
+
+        public synchronized boolean contains(String seatNumber) {
+            return indexBySeatNumber.containsKey(seatNumber);
+        }
+
+        public synchronized SeatStatus statusOf(String seatNumber) {
+            Integer index = indexBySeatNumber.get(seatNumber);
+            return index != null ? statuses[index] : null;
+        }
+
+        public synchronized int count(SeatStatus status) {
+            return (int) counts.get(status);
+        }
+
+        public synchronized int count(SeatStatus status, SeatClass seatClass) {
+            if (seatClass == null) {
+                return count(status);
+            }
+            return (int) counts.get(status, seatClass);
+        }
+
+        /**
+         * Copy of the seat counters by status and class
+         */
+        public synchronized SeatCounts counts() {
+            return counts.build();
+        }
+
+        /**
+         * Seat numbers with the given status, optionally restricted to a class, in seat map order
+         */
+        public synchronized List<String> seatNumbers(SeatStatus status, SeatClass seatClass) {
+            BitSet bits = (BitSet) byStatus.get(status).clone();
+            if (seatClass != null) {
+                bits.and(byClass.get(seatClass));
+            }
+            List<String> result = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                result.add(seatNumbers[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Best available seat by preference: window first, then aisle, then the rest, each in seat map order.
+         * Reads the head of a free list instead of collecting the cabin; seats in skip are passed over.
+         * Returns null when nothing is available.
+         */
+        public synchronized String nextAvailable(SeatClass seatClass, Set<String> skip) {
+            BitSet[] byRank = seatClass != null ? availableByClassAndRank.get(seatClass) : availableByRank;
+            for (BitSet available : byRank) {
+                for (int i = available.nextSetBit(0); i >= 0; i = available.nextSetBit(i + 1)) {
+                    if (skip == null || !skip.contains(seatNumbers[i])) {
+                        return seatNumbers[i];
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Seats for a group, grouped by row. Rows are searched front to back for
+         * a single block with no aisle inside, then for the tightest set of seats in one row. With allowSplit
+         * the group is otherwise split over as few rows as possible.
+         * Returns an empty list when the group does not fit.
+         */
+        public synchronized List<List<String>> findGroup(SeatClass seatClass, int size, boolean allowSplit) {
+            if (size <= 0 || size > Long.SIZE) {
+                return List.of();
+            }
+            long[] masks = new long[rowStarts.length];
+            for (int row = 0; row < rowStarts.length; row++) {
+                masks[row] = seatClass != null ? rowAvailable[row] & rowClasses.get(seatClass)[row] : rowAvailable[row];
+            }
+
+            // One block of adjacent seats
+            for (int row = 0; row < masks.length; row++) {
+                int start = findRun(masks[row], rowAisles[row], size);
+                if (start >= 0) {
+                    return List.of(columns(row, runMask(start, size)));
+                }
+            }
+
+            // Same row, fewest seats in between
+            int bestRow = -1;
+            long bestSeats = 0;
+            int bestSpan = Integer.MAX_VALUE;
+            for (int row = 0; row < masks.length; row++) {
+                if (Long.bitCount(masks[row]) < size) {
+                    continue;
+                }
+                long seats = tightest(masks[row], size);
+                int span = Long.SIZE - Long.numberOfLeadingZeros(seats) - Long.numberOfTrailingZeros(seats);
+                if (span < bestSpan) {
+                    bestSpan = span;
+                    bestRow = row;
+                    bestSeats = seats;
+                }
+            }
+            if (bestRow >= 0) {
+                return List.of(columns(bestRow, bestSeats));
+            }
+            if (!allowSplit) {
+                return List.of();
+            }
+
+            // Split over as few rows as possible: fullest rows first, the last row takes its tightest seats
+            Integer[] order = new Integer[masks.length];
+            for (int row = 0; row < order.length; row++) {
+                order[row] = row;
+            }
+            Arrays.sort(order, Comparator.comparingInt((Integer row) -> -Long.bitCount(masks[row]))
+                    .thenComparingInt(row -> row));
+            List<List<String>> result = new ArrayList<>();
+            int remaining = size;
+            for (int row : order) {
+                int free = Long.bitCount(masks[row]);
+                if (remaining == 0 || free == 0) {
+                    break;
+                }
+                if (free <= remaining) {
+                    result.add(columns(row, masks[row]));
+                    remaining -= free;
+                } else {
+                    result.add(columns(row, tightest(masks[row], remaining)));
+                    remaining = 0;
+                }
+            }
+            return remaining == 0 ? result : List.of();
+        }
+
+        /**
+         * The given number of free seats of a row with the smallest distance between the first and the last
+         */
+        private static long tightest(long free, int count) {
+            int[] columns = setBits(free);
+            int best = 0;
+            for (int i = 1; i + count <= columns.length; i++) {
+                if (columns[i + count - 1] - columns[i] < columns[best + count - 1] - columns[best]) {
+                    best = i;
+                }
+            }
+            return free & runMask(columns[best], columns[best + count - 1] - columns[best] + 1);
+        }
+
+        private static int findRun(long free, long aisles, int length) {
+            long run = runMask(0, length);
+            // Aisles between the seats of the block, i.e. after any but the last seat
+            long inner = length > 1 ? runMask(0, length - 1) : 0;
+            for (int start = 0; start + length <= Long.SIZE; start++) {
+                if ((free & (run << start)) == (run << start) && (aisles & (inner << start)) == 0) {
+                    return start;
+                }
+            }
+            return -1;
+        }
+
+        private static long runMask(int start, int length) {
+            return (length >= Long.SIZE ? -1L : (1L << length) - 1) << start;
+        }
+
+        private static int[] setBits(long mask) {
+            int[] bits = new int[Long.bitCount(mask)];
+            for (int i = 0; mask != 0; i++) {
+                bits[i] = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+            return bits;
+        }
+
+        private List<String> columns(int row, long mask) {
+            List<String> result = new ArrayList<>(Long.bitCount(mask));
+            for (int column : setBits(mask)) {
+                result.add(seatNumbers[rowStarts[row] + column]);
+            }
+            return result;
+        }
+
+        private void updateRowMask(int index, boolean available) {
+            int row = rowOrdinals[index];
+            int column = index - rowStarts[row];
+            if (column < Long.SIZE) {
+                rowAvailable[row] = available ? rowAvailable[row] | (1L << column) : rowAvailable[row] & ~(1L << column);
+            }
+        }
+
+        private void updateFreeLists(int index, boolean available) {
+            int rank = preferenceRanks[index];
+            availableByRank[rank].set(index, available);
+            if (seatClasses[index] != null) {
+                availableByClassAndRank.get(seatClasses[index])[rank].set(index, available);
+            }
+        }
+
+        /**
+         * Seat views with the given status, optionally restricted to a class
+         */
+        public synchronized List<SeatDTO> seats(SeatStatus status, SeatClass seatClass) {
+            BitSet bits = (BitSet) byStatus.get(status).clone();
+            if (seatClass != null) {
+                bits.and(byClass.get(seatClass));
+            }
+            List<SeatDTO> result = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                result.add(toView(i));
+            }
+            return result;
+        }
+
+        /**
+         * Seat views grouped by row
+         */
+        public List<List<SeatDTO>> seatMap() {
+            return seatMapSnapshot().getRows();
+        }
+
+        /**
+         * Seat map of the current version. The map is only rebuilt after the version has changed,
+         * so polling clients share one instance between changes.
+         */
+        public synchronized SeatMapSnapshot seatMapSnapshot() {
+            if (seatMapSnapshot == null || seatMapSnapshot.getVersion() != version) {
+                seatMapSnapshot = new SeatMapSnapshot(flightId, version, buildSeatMap());
+            }
+            return seatMapSnapshot;
+        }
+
+        private List<List<SeatDTO>> buildSeatMap() {
+            List<List<SeatDTO>> seatMap = new ArrayList<>();
+            List<SeatDTO> currentRowSeats = null;
+            int currentRow = -1;
+            for (int i = 0; i < seatNumbers.length; i++) {
+                if (rows[i] != currentRow || currentRowSeats == null) {
+                    currentRowSeats = new ArrayList<>();
+                    seatMap.add(currentRowSeats);
+                    currentRow = rows[i];
+                }
+                currentRowSeats.add(toView(i));
+            }
+            for (int i = 0; i < seatMap.size(); i++) {
+                seatMap.set(i, Collections.unmodifiableList(seatMap.get(i)));
+            }
+            return Collections.unmodifiableList(seatMap);
+        }
+
+        /**
+         * Update the status of a seat. Returns false when the seat is unknown.
+         * The change is reported to the listener while the inventory is locked, so listeners
+         * see the changes of one flight in version order; they must not block.
+         */
+        public synchronized boolean setStatus(String seatNumber, SeatStatus newStatus) {
+            Integer index = indexBySeatNumber.get(seatNumber);
+            if (index == null) {
+                return false;
+            }
+            SeatStatus oldStatus = statuses[index];
+            if (oldStatus != newStatus) {
+                byStatus.get(oldStatus).clear(index);
+                byStatus.get(newStatus).set(index);
+                counts.add(oldStatus, seatClasses[index], -1);
+                counts.add(newStatus, seatClasses[index], 1);
+                statuses[index] = newStatus;
+                if (sink != null) {
+                    sink.statusChanged(index, newStatus);
+                }
+                if (oldStatus == SeatStatus.AVAILABLE || newStatus == SeatStatus.AVAILABLE) {
+                    updateFreeLists(index, newStatus == SeatStatus.AVAILABLE);
+                    updateRowMask(index, newStatus == SeatStatus.AVAILABLE);
+                }
+                long previousVersion = version;
+                version = VERSION_CLOCK.incrementAndGet();
+                if (changeListener != null) {
+                    changeListener.accept(new SeatChange(flightId, seatNumber, oldStatus, newStatus,
+                            previousVersion, version));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Update the status of several seats under one lock. Returns false when any seat is unknown.
+         */
+        public synchronized boolean setStatuses(List<String> seatNumbers, SeatStatus newStatus) {
+            boolean allKnown = true;
+            for (String seatNumber : seatNumbers) {
+                allKnown &= setStatus(seatNumber, newStatus);
+            }
+            return allKnown;
+        }
+
+        /**
+         * Apply a committed change along with the inventory version its transaction produced.
+         * Returns false when the seat is unknown or a commit was evidently missed.
+         */
+        public synchronized boolean setStatus(String seatNumber, SeatStatus newStatus, long committedVersion) {
+            if (alreadyApplied(committedVersion)) {
+                return true;
+            }
+            return setStatus(seatNumber, newStatus) && advanceInventoryVersion(committedVersion);
+        }
+
+        public synchronized boolean setStatuses(List<String> seatNumbers, SeatStatus newStatus, long committedVersion) {
+            if (alreadyApplied(committedVersion)) {
+                return true;
+            }
+            return setStatuses(seatNumbers, newStatus) && advanceInventoryVersion(committedVersion);
+        }
+
+        // The contents were loaded at or after this commit, so its change is in them (or superseded)
+        private boolean alreadyApplied(long committedVersion) {
+            return inventoryVersion >= 0 && committedVersion >= 0
+                    && (committedVersion <= inventoryVersion || pendingVersions.contains(committedVersion));
+        }
+
+        public synchronized long getInventoryVersion() { return inventoryVersion; }
+
+        synchronized void initInventoryVersion(long version) {
+            inventoryVersion = version;
+        }
+
+        private boolean advanceInventoryVersion(long committedVersion) {
+            if (inventoryVersion < 0 || committedVersion <= inventoryVersion) {
+                return true;
+            }
+            if (committedVersion != inventoryVersion + 1) {
+                if (pendingVersions.size() < MAX_PENDING_VERSIONS) {
+                    pendingVersions.add(committedVersion);
+                    return true;
+                }
+                // The gap never closed: a commit completed while the inventory was loading
+                inventoryVersion = -1;
+                pendingVersions.clear();
+                sink = null;
+                return false;
+            }
+            inventoryVersion = committedVersion;
+            while (pendingVersions.remove(inventoryVersion + 1)) {
+                inventoryVersion++;
+            }
+            if (sink != null) {
+                sink.versionChanged(inventoryVersion);
+            }
+            return true;
+        }
+
+        /**
+         * Attach a sink under the inventory lock: the opener sees the current contents, the sink every
+         * change after them. Only inventories with a known version can be attached.
+         */
+        synchronized boolean attach(Function<FlightInventory, InventorySink> opener) {
+            if (inventoryVersion < 0) {
+                return false;
+            }
+            sink = opener.apply(this);
+            return sink != null;
+        }
+
+        synchronized Seat seatAt(int index) {
+            return toSeat(index);
+        }
+
+        /**
+         * Detached view of a single seat, or null when the seat is unknown
+         */
+        public synchronized Seat seat(String seatNumber) {
+            Integer index = indexBySeatNumber.get(seatNumber);
+            return index != null ? toSeat(index) : null;
+        }
+
+        /**
+         * Database id of a seat, or null when the seat is unknown
+         */
+        public Long seatId(String seatNumber) {
+            Integer index = indexBySeatNumber.get(seatNumber);
+            return index != null && seatIds[index] != 0L ? seatIds[index] : null;
+        }
+
+        // Reservations are not tracked in memory, views carry no booking reference
+        private SeatDTO toView(int index) {
+            return new SeatDTO(seatIds[index], seatNumbers[index], seatClasses[index], statuses[index],
+                    rows[index] != Integer.MAX_VALUE ? rows[index] : null, columns[index], positions[index],
+                    exitRowSeats.get(index), null);
+        }
+
+        private Seat toSeat(int index) {
+            Seat seat = new Seat(seatNumbers[index], seatClasses[index], null);
+            seat.setId(seatIds[index]);
+            seat.setStatus(statuses[index]);
+            seat.setRowNumber(rows[index] != Integer.MAX_VALUE ? rows[index] : null);
+            seat.setColumnCode(columns[index]);
+            seat.setPosition(positions[index]);
+            seat.setExitRow(exitRowSeats.get(index));
+            return seat;
+        }
+    }
+
+    /**
+     * A seat status change applied to the inventory, published as an application event.
+     * previousVersion is the inventory version the change was applied to, so consumers can
+     * tell whether they missed a change (or a reload) in between.
+     */
+    public static final class SeatChange {
+        private final Long flightId;
+        private final String seatNumber;
+        private final SeatStatus oldStatus;
+        private final SeatStatus newStatus;
+        private final long previousVersion;
+        private final long version;
+
+        SeatChange(Long flightId, String seatNumber, SeatStatus oldStatus, SeatStatus newStatus,
+                   long previousVersion, long version) {
+            this.flightId = flightId;
+            this.seatNumber = seatNumber;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+            this.previousVersion = previousVersion;
+            this.version = version;
+        }
+
+        public Long getFlightId() { return flightId; }
+        public String getSeatNumber() { return seatNumber; }
+        public SeatStatus getOldStatus() { return oldStatus; }
+        public SeatStatus getNewStatus() { return newStatus; }
+        @JsonIgnore
+        public long getPreviousVersion() { return previousVersion; }
+        public long getVersion() { return version; }
+    }
+
+    /**
+     * Seat counts of one flight by status and class. Seats without a class are counted under null.
+     */
+    public static final class SeatCounts {
+        private static final int NO_CLASS = SeatClass.values().length;
+
+        private final long[][] counts;
+
+        private SeatCounts(long[][] counts) {
+            this.counts = counts;
+        }
+
+        /**
+         * Counts from rows of (seatClass, status, count), as returned by the grouped seat count queries
+         */
+        public static SeatCounts fromRows(List<Object[]> rows, int classColumn) {
+            Builder builder = new Builder();
+            for (Object[] row : rows) {
+                builder.add((SeatStatus) row[classColumn + 1], (SeatClass) row[classColumn],
+                        ((Number) row[classColumn + 2]).longValue());
+            }
+            return builder.build();
+        }
+
+        public long get(SeatStatus status) {
+            long total = 0;
+            for (long count : counts[status.ordinal()]) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long get(SeatStatus status, SeatClass seatClass) {
+            return counts[status.ordinal()][seatClass != null ? seatClass.ordinal() : NO_CLASS];
+        }
+
+        public long getTotal() {
+            long total = 0;
+            for (SeatStatus status : SeatStatus.values()) {
+                total += get(status);
+            }
+            return total;
+        }
+
+        public long getTotal(SeatClass seatClass) {
+            long total = 0;
+            for (SeatStatus status : SeatStatus.values()) {
+                total += get(status, seatClass);
+            }
+            return total;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SeatCounts && Arrays.deepEquals(counts, ((SeatCounts) other).counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(counts);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("SeatCounts{");
+            for (SeatStatus status : SeatStatus.values()) {
+                result.append(status).append('=').append(Arrays.toString(counts[status.ordinal()])).append(' ');
+            }
+            return result.append('}').toString();
+        }
+
+        static final class Builder {
+            private final long[][] counts = new long[SeatStatus.values().length][NO_CLASS + 1];
+
+            void add(SeatStatus status, SeatClass seatClass, long delta) {
+                counts[status.ordinal()][seatClass != null ? seatClass.ordinal() : NO_CLASS] += delta;
+            }
+
+            long get(SeatStatus status) {
+                long total = 0;
+                for (long count : counts[status.ordinal()]) {
+                    total += count;
+                }
+                return total;
+            }
+
+            long get(SeatStatus status, SeatClass seatClass) {
+                return counts[status.ordinal()][seatClass != null ? seatClass.ordinal() : NO_CLASS];
+            }
+
+            SeatCounts build() {
+                long[][] copy = new long[counts.length][];
+                for (int i = 0; i < counts.length; i++) {
+                    copy[i] = counts[i].clone();
+                }
+                return new SeatCounts(copy);
+            }
+        }
+    }
+
+    /**
+     * Immutable seat map of one inventory version
+     */
+    public static final class SeatMapSnapshot {
+        private final Long flightId;
+        private final long version;
+        private final List<List<SeatDTO>> rows;
+
+        SeatMapSnapshot(Long flightId, long version, List<List<SeatDTO>> rows) {
+            this.flightId = flightId;
+            this.version = version;
+            this.rows = rows;
+        }
+
+        public static String eTag(Long flightId, long version) {
+            return "\"" + flightId + "-" + version + "\"";
+        }
+
+        public Long getFlightId() { return flightId; }
+        public long getVersion() { return version; }
+        public List<List<SeatDTO>> getRows() { return rows; }
+        public String getETag() { return eTag(flightId, version); }
+
+        /**
+         * Whether an If-None-Match header value matches this version
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            String eTag = getETag();
+            for (String candidate : ifNoneMatch.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.startsWith("W/")) {
+                    trimmed = trimmed.substring(2);
+                }
+                if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
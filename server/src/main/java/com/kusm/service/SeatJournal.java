@@ -0,0 +1,246 @@
+package com.kusm.service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.model.SeatTransition;
+import com.kusm.repository.SeatJournalRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Append-only journal of seat status transitions. Entries of a transaction are buffered and written as
+ * one JDBC batch right before it commits, after the pending seat updates are flushed: the journal row is
+ * inserted while the transaction still holds the seat's row lock, so for any one seat journal ids follow
+ * commit order. Each entry records the writing transaction's id for snapshot replay (SeatSnapshotService).
+ *
+ * With the memory-mapped inventory enabled, every committing transaction also bumps the inventory version
+ * of each flight it changed (flights.inventory_version). The bump holds the flight row until commit, so
+ * versions of a flight are consecutive in commit order and the mapped slots can tell exactly which database
+ * state they reflect. The bump serializes the commits of a flight, so it is skipped when nothing reads the
+ * versions; journal entries then carry no inventory version.
+ */
+@Component
+public class SeatJournal {
+
+    private static final String INSERT =
+            "INSERT INTO seat_journal (flight_id, seat_number, from_status, to_status, reservation_id, inventory_version, "
+            + "tx_id, recorded_at) VALUES (?, ?, CAST(? AS seat_status), CAST(? AS seat_status), ?, ?, "
+            + "pg_current_xact_id()::text::bigint, ?)";
+    private static final String BUMP_INVENTORY_VERSION =
+            "UPDATE flights SET inventory_version = inventory_version + 1 WHERE id = ? RETURNING inventory_version";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SeatJournalRepository seatJournalRepository;
+
+    @Autowired
+    private MappedSeatStore mappedSeatStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Per-transaction buffer, bound as a transaction resource under this key
+    private final Object bufferKey = new Object();
+    private final Set<Long> changedFlights = ConcurrentHashMap.newKeySet();
+    private final AtomicLong appended = new AtomicLong();
+
+    /**
+     * Journal one seat transition as part of the current transaction
+     */
+    public TransactionBatch append(Long flightId, String seatNumber, SeatStatus fromStatus, SeatStatus toStatus,
+                                   Long reservationId) {
+        TransactionBatch batch = batch();
+        batch.entries.add(new Entry(flightId, seatNumber, fromStatus, toStatus, reservationId, LocalDateTime.now()));
+        return batch;
+    }
+
+    /**
+     * Journal the same transition for many seats of a flight
+     */
+    public TransactionBatch append(Long flightId, List<String> seatNumbers, SeatStatus fromStatus, SeatStatus toStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionBatch batch = batch();
+        for (String seatNumber : seatNumbers) {
+            batch.entries.add(new Entry(flightId, seatNumber, fromStatus, toStatus, null, now));
+        }
+        return batch;
+    }
+
+    /**
+     * Journal newly created seats with their initial status
+     */
+    public TransactionBatch appendCreated(Long flightId, List<Seat> seats) {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionBatch batch = batch();
+        for (Seat seat : seats) {
+            batch.entries.add(new Entry(flightId, seat.getSeatNumber(), null, seat.getStatus(), null, now));
+        }
+        return batch;
+    }
+
+    /**
+     * Status of every journaled seat of a flight as of the given time. Seats created before the
+     * journal existed only appear once they have changed.
+     */
+    public Map<String, SeatStatus> statusesAt(Long flightId, LocalDateTime at) {
+        Map<String, SeatStatus> statuses = new LinkedHashMap<>();
+        for (SeatTransition transition : seatJournalRepository.findUpTo(flightId, at)) {
+            statuses.put(transition.getSeatNumber(), transition.getToStatus());
+        }
+        return statuses;
+    }
+
+    /**
+     * All journaled transitions of one seat, oldest first
+     */
+    public List<SeatTransition> history(Long flightId, String seatNumber) {
+        return seatJournalRepository.findBySeat(flightId, seatNumber);
+    }
+
+    /**
+     * Flights with committed journal entries since the last call
+     */
+    public Set<Long> drainChangedFlights() {
+        Set<Long> drained = Set.copyOf(changedFlights);
+        changedFlights.removeAll(drained);
+        return drained;
+    }
+
+    public void markChanged(Long flightId) {
+        changedFlights.add(flightId);
+    }
+
+    public long getAppendedCount() {
+        return appended.get();
+    }
+
+    private TransactionBatch batch() {
+        // The entries must commit or roll back together with the seat changes they describe
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Seat transitions must be journaled inside a transaction");
+        }
+        TransactionBatch batch = (TransactionBatch) TransactionSynchronizationManager.getResource(bufferKey);
+        if (batch != null) {
+            return batch;
+        }
+        TransactionBatch newBatch = new TransactionBatch();
+        TransactionSynchronizationManager.bindResource(bufferKey, newBatch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Seat updates made through entities are still pending until the flush
+                entityManager.flush();
+                if (mappedSeatStore.isEnabled()) {
+                    bumpInventoryVersions(newBatch);
+                }
+                write(newBatch);
+            }
+
+            @Override
+            public void afterCommit() {
+                newBatch.entries.forEach(entry -> changedFlights.add(entry.flightId));
+                appended.addAndGet(newBatch.entries.size());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(bufferKey);
+            }
+        });
+        return newBatch;
+    }
+
+    // Flights in id order: transactions changing several flights queue up on the first one they share
+    // instead of each holding a row the other needs (no deadlock between bumps)
+    private void bumpInventoryVersions(TransactionBatch batch) {
+        TreeSet<Long> flightIds = new TreeSet<>();
+        batch.entries.forEach(entry -> flightIds.add(entry.flightId));
+        for (Long flightId : flightIds) {
+            batch.versions.put(flightId, jdbcTemplate.queryForObject(BUMP_INVENTORY_VERSION, Long.class, flightId));
+        }
+    }
+
+    private void write(TransactionBatch batch) {
+        List<Entry> entries = batch.entries;
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.flightId);
+            statement.setString(2, entry.seatNumber);
+            statement.setString(3, entry.fromStatus != null ? entry.fromStatus.name() : null);
+            statement.setString(4, entry.toStatus.name());
+            if (entry.reservationId != null) {
+                statement.setLong(5, entry.reservationId);
+            } else {
+                statement.setNull(5, Types.BIGINT);
+            }
+            Long version = batch.versions.get(entry.flightId);
+            if (version != null) {
+                statement.setLong(6, version);
+            } else {
+                statement.setNull(6, Types.BIGINT);
+            }
+            statement.setTimestamp(7, Timestamp.valueOf(entry.recordedAt));
+        });
+    }
+
+    /**
+     * The journal entries of one transaction. Once it has committed, versionOf tells the inventory
+     * version the transaction produced for a flight.
+     */
+    public static final class TransactionBatch {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<Long, Long> versions = new HashMap<>();
+
+        /**
+         * Inventory version written for the flight, or -1 before the transaction has committed or when
+         * versions are not maintained (memory-mapped inventory disabled)
+         */
+        public long versionOf(Long flightId) {
+            Long version = versions.get(flightId);
+            return version != null ? version : -1L;
+        }
+    }
+
+    private static final class Entry {
+        private final Long flightId;
+        private final String seatNumber;
+        private final SeatStatus fromStatus;
+        private final SeatStatus toStatus;
+        private final Long reservationId;
+        private final LocalDateTime recordedAt;
+
+        Entry(Long flightId, String seatNumber, SeatStatus fromStatus, SeatStatus toStatus, Long reservationId,
+              LocalDateTime recordedAt) {
+            this.flightId = flightId;
+            this.seatNumber = seatNumber;
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+            this.reservationId = reservationId;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.kusm.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.kusm.service.SeatInventory.SeatChange;
+import com.kusm.service.SeatInventory.SeatMapSnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Live seat map streams over Server-Sent Events. A subscriber gets a "snapshot" event followed by one
+ * "seat" event per status change; event ids are inventory versions, so a reconnecting client can resume
+ * from its last version and only receives the changes it missed (or a new snapshot if they are no longer
+ * buffered). Changes are handed to per-flight dispatcher threads, so booking transactions never wait
+ * on subscribers.
+ */
+@Service
+public class SeatMapStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatMapStreamService.class);
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Value("${booking.seatmap.stream.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    @Value("${booking.seatmap.stream.replay-size:500}")
+    private int replaySize;
+
+    @Value("${booking.seatmap.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${booking.seatmap.stream.idle-retention-ms:300000}")
+    private long idleRetentionMs;
+
+    private final Map<Long, FlightStream> streams = new ConcurrentHashMap<>();
+    private ScheduledExecutorService[] dispatchers;
+
+    @PostConstruct
+    void init() {
+        dispatchers = new ScheduledExecutorService[Math.max(1, dispatchThreads)];
+        for (int i = 0; i < dispatchers.length; i++) {
+            String name = "seatmap-stream-" + i;
+            dispatchers[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ScheduledExecutorService dispatcher : dispatchers) {
+            dispatcher.shutdownNow();
+        }
+        for (FlightStream stream : streams.values()) {
+            for (Subscriber subscriber : stream.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Open a stream for a flight. With a version the client has already seen (Last-Event-ID),
+     * only later changes are sent when they are still buffered; otherwise a snapshot comes first.
+     */
+    public SseEmitter subscribe(Long flightId, Long fromVersion) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        // Counted as pending until started, so the stream is not dropped as idle in between
+        FlightStream stream = streams.compute(flightId, (id, existing) -> {
+            FlightStream flightStream = existing != null ? existing : new FlightStream(id);
+            flightStream.pendingSubscribers.incrementAndGet();
+            return flightStream;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(stream, subscriber));
+        emitter.onTimeout(() -> unsubscribe(stream, subscriber));
+        emitter.onError(e -> unsubscribe(stream, subscriber));
+
+        dispatcherFor(flightId).execute(() -> start(stream, subscriber, fromVersion));
+        return emitter;
+    }
+
+    public int getSubscriberCount(Long flightId) {
+        FlightStream stream = streams.get(flightId);
+        return stream != null ? stream.subscribers.size() : 0;
+    }
+
+    /**
+     * Called while the flight inventory is locked; only queues the change for the dispatcher
+     */
+    @EventListener
+    public void onSeatChange(SeatChange change) {
+        FlightStream stream = streams.get(change.getFlightId());
+        if (stream != null) {
+            dispatcherFor(change.getFlightId()).execute(() -> dispatch(stream, change));
+        }
+    }
+
+    private void unsubscribe(FlightStream stream, Subscriber subscriber) {
+        if (stream.subscribers.remove(subscriber) && stream.subscribers.isEmpty()) {
+            dispatcherFor(stream.flightId).execute(() -> scheduleIdleCheck(stream));
+        }
+    }
+
+    private ScheduledExecutorService dispatcherFor(Long flightId) {
+        return dispatchers[(Long.hashCode(flightId) & 0x7fffffff) % dispatchers.length];
+    }
+
+    // Runs on the flight's dispatcher thread
+    private void start(FlightStream stream, Subscriber subscriber, Long fromVersion) {
+        try {
+            SeatMapSnapshot snapshot = seatInventory.get(stream.flightId).seatMapSnapshot();
+            if (fromVersion != null && fromVersion == snapshot.getVersion()) {
+                subscriber.lastSentVersion = fromVersion;
+            } else if (fromVersion != null && stream.canReplayFrom(fromVersion)
+                    && stream.lastVersion == snapshot.getVersion()) {
+                subscriber.lastSentVersion = fromVersion;
+                for (SeatChange change : stream.recent) {
+                    send(subscriber, change);
+                }
+            } else {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(snapshot.getVersion()))
+                        .name("snapshot")
+                        .data(snapshot));
+                subscriber.lastSentVersion = snapshot.getVersion();
+            }
+            stream.subscribers.add(subscriber);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to start seat map stream for flight {}: {}", stream.flightId, e.getMessage());
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            stream.pendingSubscribers.decrementAndGet();
+        }
+    }
+
+    // Runs on the flight's dispatcher thread
+    private void dispatch(FlightStream stream, SeatChange change) {
+        stream.record(change, replaySize);
+        for (Subscriber subscriber : stream.subscribers) {
+            send(subscriber, change);
+        }
+        if (stream.subscribers.isEmpty()) {
+            scheduleIdleCheck(stream);
+        }
+    }
+
+    private void send(Subscriber subscriber, SeatChange change) {
+        // Changes already covered by the subscriber's snapshot are skipped
+        if (change.getVersion() <= subscriber.lastSentVersion) {
+            return;
+        }
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.getVersion()))
+                    .name("seat")
+                    .data(change));
+            subscriber.lastSentVersion = change.getVersion();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; it can reconnect with its last event id
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Keep the replay buffer of a flight without subscribers for a while, so reconnecting clients can resume
+     */
+    private void scheduleIdleCheck(FlightStream stream) {
+        if (stream.idleCheckScheduled) {
+            return;
+        }
+        stream.idleCheckScheduled = true;
+        dispatcherFor(stream.flightId).schedule(() -> {
+            stream.idleCheckScheduled = false;
+            streams.computeIfPresent(stream.flightId, (id, current) ->
+                    current == stream && stream.isIdle() ? null : current);
+        }, idleRetentionMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribers and recent changes of one flight. Everything except the subscriber list
+     * is only touched from the flight's dispatcher thread.
+     */
+    private static final class FlightStream {
+        private final Long flightId;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pendingSubscribers = new AtomicInteger();
+        private final Deque<SeatChange> recent = new ArrayDeque<>();
+        // Versions from firstVersion (exclusive) to lastVersion (inclusive) can be replayed
+        private long firstVersion = -1;
+        private long lastVersion = -1;
+        private boolean idleCheckScheduled;
+
+        FlightStream(Long flightId) {
+            this.flightId = flightId;
+        }
+
+        void record(SeatChange change, int capacity) {
+            if (change.getPreviousVersion() != lastVersion) {
+                // Missed changes or the inventory was reloaded, older changes cannot be replayed
+                recent.clear();
+                firstVersion = change.getPreviousVersion();
+            }
+            recent.addLast(change);
+            lastVersion = change.getVersion();
+            while (recent.size() > capacity) {
+                firstVersion = recent.removeFirst().getVersion();
+            }
+        }
+
+        boolean isIdle() {
+            return subscribers.isEmpty() && pendingSubscribers.get() == 0;
+        }
+
+        boolean canReplayFrom(long version) {
+            return firstVersion >= 0 && version >= firstVersion && version <= lastVersion;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile long lastSentVersion = -1;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
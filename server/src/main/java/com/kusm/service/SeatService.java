@@ -1,29 +1,70 @@
 package com.kusm.service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.dto.flightDTO.SeatSelection;
+import com.kusm.exceptions.BookingConflictException;
 import com.kusm.model.Flight;
 import com.kusm.model.Reservation;
 import com.kusm.model.Seat;
 import com.kusm.model.Seat.SeatClass;
 import com.kusm.model.Seat.SeatStatus;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ManagedEntityRefresher;
+import com.kusm.repository.SeatBatchRepository;
 import com.kusm.repository.SeatRepository;
+import com.kusm.service.SeatInventory.FlightInventory;
+import com.kusm.service.SeatInventory.SeatCounts;
+import com.kusm.service.SeatInventory.SeatMapSnapshot;
 
 @Service
 public class SeatService {
     
+    // Largest group on one reservation, as with most airlines' online booking
+    public static final int MAX_GROUP_SIZE = 9;
+    private static final int MAX_GROUP_ATTEMPTS = 3;
+    
     @Autowired
     private SeatRepository seatRepository;
     
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+    
+    @Autowired
+    private FlightRepository flightRepository;
+    
+    @Autowired
+    private ManagedEntityRefresher managedEntities;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private FlightSearchIndex flightSearchIndex;
+    
+    @Autowired
+    private CabinLayoutService cabinLayoutService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
-     * Initialize seats for a flight based on aircraft configuration
-     * Default configuration: 6 seats per row (A-F), Economy class
+     * Initialize seats for a flight based on its aircraft configuration
+     * Default configuration: 6 seats per row (A-F), see CabinLayout.defaultFor
+     * One-time and idempotent: the seats_initialized flag on the flight is checked first,
+     * and only the caller that flips it creates the seats.
      */
     @Transactional
     public void initializeSeatsForFlight(Flight flight) {
@@ -31,102 +72,97 @@ public class SeatService {
             throw new IllegalArgumentException("Flight cannot be null and must have an ID");
         }
         
-        List<Seat> existingSeats = seatRepository.findByFlightId(flight.getId());
-        if (existingSeats.isEmpty()) {
-            List<Seat> seats = generateSeatsForFlight(flight);
-            System.out.println("Initializing " + seats.size() + " seats for flight: " + flight.getId());
-            seatRepository.saveAll(seats);
-        } else {
-            System.out.println("Seats already initialized for flight: " + flight.getId() + " (found " + existingSeats.size() + " seats)");
+        if (flight.isSeatsInitialized()) {
+            return;
         }
+        
+        if (flightRepository.markSeatsInitialized(flight.getId()) == 0) {
+            // Another booking initialized the seats first
+            flight.setSeatsInitialized(true);
+            return;
+        }
+        flight.setSeatsInitialized(true);
+        
+        // Flights created before the flag existed may already have seats
+        if (seatRepository.existsByFlightId(flight.getId())) {
+            System.out.println("Seats already initialized for flight: " + flight.getId());
+            return;
+        }
+        
+        List<Seat> seats = generateSeatsForFlight(flight);
+        System.out.println("Initializing " + seats.size() + " seats for flight: " + flight.getId());
+        // One multi-row INSERT per chunk instead of one IDENTITY insert per seat
+        List<Seat> savedSeats = seatBatchRepository.insertSeats(flight.getId(), seats);
+        seatInventory.load(flight.getId(), savedSeats);
     }
     
     /**
-     * Generate seats for a flight based on total seats
+     * Generate seats for a flight from its cabin layout.
+     * Seats the layout marks as blocked are created with BLOCKED status.
      */
     private List<Seat> generateSeatsForFlight(Flight flight) {
-        List<Seat> seats = new ArrayList<>();
-        int totalSeats = flight.getTotalSeats();
-        int seatsPerRow = 6; 
-        String[] seatLetters = {"A", "B", "C", "D", "E", "F"};
-        
-        if (totalSeats <= 0) {
-            throw new IllegalArgumentException("Flight must have at least 1 seat");
-        }
-        
-        int rows = (int) Math.ceil((double) totalSeats / seatsPerRow);
-        int seatCount = 0;
-        
-        for (int row = 1; row <= rows && seatCount < totalSeats; row++) {
-            for (int seat = 0; seat < seatsPerRow && seatCount < totalSeats; seat++) {
-                String seatNumber = row + seatLetters[seat];
-                SeatClass seatClass = determineSeatClass(row, totalSeats);
-                
-                Seat newSeat = new Seat(seatNumber, seatClass, flight);
-                seats.add(newSeat);
-                seatCount++;
+        CabinLayout layout = cabinLayoutService.getLayout(flight);
+        List<Seat> seats = new ArrayList<>(layout.getSeatCount());
+        
+        for (CabinLayout.SeatSlot slot : layout.seats()) {
+            Seat newSeat = new Seat(slot.getSeatNumber(), slot.getSeatClass(), flight);
+            newSeat.setRowNumber(slot.getRow());
+            newSeat.setColumnCode(String.valueOf(slot.getLetter()));
+            newSeat.setPosition(slot.getPosition());
+            newSeat.setExitRow(slot.isExitRow());
+            if (slot.isBlocked()) {
+                newSeat.setStatus(SeatStatus.BLOCKED);
             }
+            seats.add(newSeat);
         }
         
-        System.out.println("Generated " + seats.size() + " seats for flight " + flight.getFlightNumber());
+        System.out.println("Generated " + seats.size() + " seats for flight " + flight.getFlightNumber()
+                + " using layout " + layout.getCode());
         return seats;
     }
     
     /**
-     * Determine seat class based on row number
+     * Get the cabin layout a flight's seats were generated from
      */
-    private SeatClass determineSeatClass(int row, int totalSeats) {
-        int totalRows = (int) Math.ceil((double) totalSeats / 6);
-        
-        // First class: first 2 rows
-        if (row <= 2) {
-            return SeatClass.FIRST;
-        } 
-        // Business class: up to 15% of total rows (minimum 2 more rows)
-        else if (row <= Math.max(4, (int) (totalRows * 0.15))) {
-            return SeatClass.BUSINESS;
-        } 
-        // Premium economy: up to 30% of total rows (minimum 4 more rows)
-        else if (row <= Math.max(8, (int) (totalRows * 0.30))) {
-            return SeatClass.PREMIUM_ECONOMY;
-        } 
-        // Economy: remaining rows
-        else {
-            return SeatClass.ECONOMY;
-        }
+    @Transactional(readOnly = true)
+    public CabinLayout getCabinLayout(Long flightId) {
+        Flight flight = flightRepository.findById(flightId)
+                .orElseThrow(() -> new IllegalArgumentException("Flight not found with ID: " + flightId));
+        return cabinLayoutService.getLayout(flight);
     }
     
     /**
      * Get available seats for a flight
      */
-    public List<Seat> getAvailableSeats(Long flightId) {
+    public List<SeatDTO> getAvailableSeats(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
-        return seatRepository.findByFlightIdAndStatus(flightId, SeatStatus.AVAILABLE);
+        return seatInventory.get(flightId).seats(SeatStatus.AVAILABLE, null);
     }
     
     /**
      * Get available seats by class
      */
-    public List<Seat> getAvailableSeatsByClass(Long flightId, SeatClass seatClass) {
+    public List<SeatDTO> getAvailableSeatsByClass(Long flightId, SeatClass seatClass) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
         if (seatClass == null) {
             return getAvailableSeats(flightId);
         }
-        return seatRepository.findByFlightIdAndSeatClassAndStatus(flightId, seatClass, SeatStatus.AVAILABLE);
+        return seatInventory.get(flightId).seats(SeatStatus.AVAILABLE, seatClass);
     }
     
     /**
-     * Get all seats for a flight
+     * Get all seats for a flight with their booking references, read as a projection in one query
      */
-    public List<Seat> getAllSeatsForFlight(Long flightId) {
+    @Transactional(readOnly = true)
+    public List<SeatDTO> getAllSeatsForFlight(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
-        return seatRepository.findByFlightId(flightId);
+        return seatRepository.findSeatViewsByFlightId(flightId);
     }
     
     /**
@@ -144,21 +180,19 @@ public class SeatService {
             throw new IllegalArgumentException("Reservation cannot be null");
         }
         
-        Optional<Seat> seatOpt = seatRepository.findByFlightIdAndSeatNumber(flightId, seatNumber.trim().toUpperCase());
-        
-        if (seatOpt.isPresent()) {
-            Seat seat = seatOpt.get();
-            if (seat.isAvailable()) {
-                seat.setStatus(SeatStatus.BOOKED);
-                seat.setReservation(reservation);
-                System.out.println("Assigned seat " + seatNumber + " to reservation " + reservation.getBookingReference());
-                return seatRepository.save(seat);
-            } else {
-                throw new IllegalStateException("Seat " + seatNumber + " is not available (current status: " + seat.getStatus() + ")");
-            }
-        } else {
+        String normalizedSeatNumber = seatNumber.trim().toUpperCase();
+        FlightInventory inventory = seatInventory.get(flightId);
+        SeatStatus knownStatus = inventory.statusOf(normalizedSeatNumber);
+        if (knownStatus == null) {
             throw new IllegalArgumentException("Seat " + seatNumber + " does not exist on flight " + flightId);
         }
+        if (knownStatus != SeatStatus.AVAILABLE || !claimSeat(flightId, normalizedSeatNumber, reservation)) {
+            throw new IllegalStateException("Seat " + seatNumber + " is not available (current status: " 
+                    + inventory.statusOf(normalizedSeatNumber) + ")");
+        }
+        
+        System.out.println("Assigned seat " + seatNumber + " to reservation " + reservation.getBookingReference());
+        return claimedSeat(flightId, normalizedSeatNumber, reservation);
     }
     
     /**
@@ -173,45 +207,142 @@ public class SeatService {
             throw new IllegalArgumentException("Reservation cannot be null");
         }
         
-        List<Seat> availableSeats;
-        
         if (preferredClass != null) {
-            availableSeats = seatRepository.findAvailableSeatsByFlightIdAndSeatClassOrderBySeatNumber(flightId, preferredClass);
             System.out.println("Looking for available " + preferredClass + " seats on flight " + flightId);
         } else {
-            availableSeats = seatRepository.findAvailableSeatsByFlightIdOrderBySeatNumber(flightId);
             System.out.println("Looking for any available seats on flight " + flightId);
         }
         
-        if (availableSeats.isEmpty()) {
-            if (preferredClass != null) {
-                // Try to find seats in any class if preferred class is not available
-                System.out.println("No " + preferredClass + " seats available, trying any class");
-                availableSeats = seatRepository.findAvailableSeatsByFlightIdOrderBySeatNumber(flightId);
-                if (availableSeats.isEmpty()) {
-                    throw new IllegalStateException("No available seats on flight " + flightId);
-                }
-            } else {
-                throw new IllegalStateException("No available seats on flight " + flightId);
+        Seat selectedSeat = claimNextAvailable(flightId, reservation, preferredClass);
+        if (selectedSeat == null && preferredClass != null) {
+            // Try to find seats in any class if preferred class is not available
+            System.out.println("No " + preferredClass + " seats available, trying any class");
+            selectedSeat = claimNextAvailable(flightId, reservation, null);
+        }
+        if (selectedSeat == null) {
+            throw new IllegalStateException("No available seats on flight " + flightId);
+        }
+        System.out.println("Auto-assigned seat " + selectedSeat.getSeatNumber() + 
+                         " (" + selectedSeat.getSeatClass() + ") to reservation " + reservation.getBookingReference());
+        return selectedSeat;
+    }
+    
+    /**
+     * Assign the best free seat of exactly the given class, or return null when the class is full
+     */
+    @Transactional
+    public Seat assignSeatInClass(Long flightId, Reservation reservation, SeatClass seatClass) {
+        if (flightId == null || seatClass == null) {
+            throw new IllegalArgumentException("Flight ID and seat class cannot be null");
+        }
+        return claimNextAvailable(flightId, reservation, seatClass);
+    }
+    
+    /**
+     * Each pick reads the head of the (class, position) free list: window, aisle, then middle.
+     * A lost claim refreshes that seat and the next pick moves on.
+     */
+    private Seat claimNextAvailable(Long flightId, Reservation reservation, SeatClass seatClass) {
+        Set<String> attempted = new HashSet<>();
+        while (true) {
+            String candidate = seatInventory.get(flightId).nextAvailable(seatClass, attempted);
+            if (candidate == null) {
+                return null;
+            }
+            attempted.add(candidate);
+            if (claimSeat(flightId, candidate, reservation)) {
+                return claimedSeat(flightId, candidate, reservation);
             }
         }
+    }
+    
+    /**
+     * Allocate seats for a group booked on one reservation, side by side where possible.
+     * All seats are claimed with one conditional update; if any of them was taken in the meantime
+     * the others are released again and a new set is searched, so the group gets all seats or none.
+     * Without allowSplit the group must fit in one row.
+     */
+    @Transactional
+    public GroupAllocation allocateGroupSeats(Long flightId, Reservation reservation, SeatClass seatClass,
+                                              int groupSize, boolean allowSplit) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation cannot be null");
+        }
+        if (groupSize < 1 || groupSize > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("Group size must be between 1 and " + MAX_GROUP_SIZE);
+        }
         
-        // Prefer window seats, then aisle, then middle
-        Seat selectedSeat = availableSeats.stream()
-            .filter(Seat::isWindow)
-            .findFirst()
-            .orElse(availableSeats.stream()
-                .filter(Seat::isAisle)
-                .findFirst()
-                .orElse(availableSeats.get(0)));
-        
-        selectedSeat.setStatus(SeatStatus.BOOKED);
-        selectedSeat.setReservation(reservation);
+        for (int attempt = 0; attempt < MAX_GROUP_ATTEMPTS; attempt++) {
+            List<List<String>> rows = seatInventory.get(flightId).findGroup(seatClass, groupSize, allowSplit);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<String> seatNumbers = new ArrayList<>(groupSize);
+            rows.forEach(seatNumbers::addAll);
+            
+            int claimed = seatRepository.compareAndSetStatusAll(flightId, seatNumbers,
+                    SeatStatus.AVAILABLE, SeatStatus.BOOKED, reservation);
+            if (claimed == seatNumbers.size()) {
+                List<Seat> seats = new ArrayList<>(seatNumbers.size());
+                for (String seatNumber : seatNumbers) {
+                    refreshManagedSeat(flightId, seatNumber);
+                    seatInventory.recordTransition(flightId, seatNumber, SeatStatus.AVAILABLE, SeatStatus.BOOKED,
+                            reservation.getId());
+                    seats.add(claimedSeat(flightId, seatNumber, reservation));
+                }
+                System.out.println("Allocated seats " + seatNumbers + " in " + rows.size() + " row(s) to reservation "
+                        + reservation.getBookingReference());
+                return new GroupAllocation(seats, rows.size());
+            }
+            
+            // Some seats were taken concurrently: give back the rest, catch up and search again
+            seatRepository.releaseClaimedSeats(flightId, seatNumbers, reservation, SeatStatus.BOOKED, SeatStatus.AVAILABLE);
+            for (String seatNumber : seatNumbers) {
+                refreshManagedSeat(flightId, seatNumber);
+                seatInventory.refreshSeat(flightId, seatNumber);
+            }
+        }
         
-        System.out.println("Auto-assigned seat " + selectedSeat.getSeatNumber() + 
-                         " (" + selectedSeat.getSeatClass() + ") to reservation " + reservation.getBookingReference());
+        throw new IllegalStateException("No " + groupSize + " seats" + (seatClass != null ? " in " + seatClass : "")
+                + (allowSplit ? "" : " in one row") + " available on flight " + flightId);
+    }
+    
+    /**
+     * Claim an available seat with a single conditional update (see book_seat() in postgres_procedures.sql).
+     * Returns false if the seat was no longer available, in which case the cached status is refreshed.
+     */
+    private boolean claimSeat(Long flightId, String seatNumber, Reservation reservation) {
+        int updated = seatRepository.compareAndSetStatus(flightId, seatNumber, 
+                SeatStatus.AVAILABLE, SeatStatus.BOOKED, reservation);
+        if (updated > 0) {
+            refreshManagedSeat(flightId, seatNumber);
+            seatInventory.recordTransition(flightId, seatNumber, SeatStatus.AVAILABLE, SeatStatus.BOOKED,
+                    reservation.getId());
+            return true;
+        }
         
-        return seatRepository.save(selectedSeat);
+        seatInventory.refreshSeat(flightId, seatNumber);
+        return false;
+    }
+    
+    /**
+     * The conditional updates leave the persistence context alone; re-read the seat in case it is loaded there
+     */
+    private void refreshManagedSeat(Long flightId, String seatNumber) {
+        managedEntities.refresh(Seat.class, seatInventory.get(flightId).seatId(seatNumber));
+    }
+    
+    /**
+     * Detached view of a seat that was just claimed, built without another round trip
+     */
+    private Seat claimedSeat(Long flightId, String seatNumber, Reservation reservation) {
+        Seat seat = seatInventory.get(flightId).seat(seatNumber);
+        seat.setStatus(SeatStatus.BOOKED);
+        seat.setReservation(reservation);
+        return seat;
     }
     
     /**
@@ -227,9 +358,13 @@ public class SeatService {
         if (seatOpt.isPresent()) {
             Seat seat = seatOpt.get();
             String seatNumber = seat.getSeatNumber();
+            SeatStatus previousStatus = seat.getStatus();
+            Long previousReservationId = seat.getReservation() != null ? seat.getReservation().getId() : null;
             seat.setStatus(SeatStatus.AVAILABLE);
             seat.setReservation(null);
             seatRepository.save(seat);
+            seatInventory.recordTransition(seat.getFlight().getId(), seatNumber, previousStatus, SeatStatus.AVAILABLE,
+                    previousReservationId);
             System.out.println("Released seat " + seatNumber);
         } else {
             System.out.println("Seat with ID " + seatId + " not found for release");
@@ -237,10 +372,10 @@ public class SeatService {
     }
     
     /**
-     * Release seats for a reservation
+     * Release seats for a reservation; returns the number of seats released
      */
     @Transactional
-    public void releaseSeatsForReservation(Long reservationId) {
+    public int releaseSeatsForReservation(Long reservationId) {
         if (reservationId == null) {
             throw new IllegalArgumentException("Reservation ID cannot be null");
         }
@@ -248,61 +383,41 @@ public class SeatService {
         List<Seat> seats = seatRepository.findByReservationId(reservationId);
         if (!seats.isEmpty()) {
             for (Seat seat : seats) {
+                SeatStatus previousStatus = seat.getStatus();
                 seat.setStatus(SeatStatus.AVAILABLE);
                 seat.setReservation(null);
+                seatInventory.recordTransition(seat.getFlight().getId(), seat.getSeatNumber(), previousStatus,
+                        SeatStatus.AVAILABLE, reservationId);
             }
             seatRepository.saveAll(seats);
+            eventPublisher.publishEvent(new SeatsReleased(seats.get(0).getFlight().getId(), seats.size()));
             System.out.println("Released " + seats.size() + " seats for reservation " + reservationId);
         } else {
             System.out.println("No seats found for reservation " + reservationId);
         }
+        return seats.size();
     }
     
     /**
      * Get seat map for a flight
      */
-    public List<List<Seat>> getSeatMap(Long flightId) {
+    public List<List<SeatDTO>> getSeatMap(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
         
-        List<Seat> allSeats = seatRepository.findByFlightId(flightId);
-        if (allSeats.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<List<Seat>> seatMap = new ArrayList<>();
-        
-        // Group seats by row
-        int currentRow = -1;
-        List<Seat> currentRowSeats = new ArrayList<>();
-        
-        for (Seat seat : allSeats) {
-            try {
-                int seatRow = Integer.parseInt(seat.getSeatNumber().replaceAll("[A-Z]", ""));
-                
-                if (seatRow != currentRow) {
-                    // Start a new row
-                    if (!currentRowSeats.isEmpty()) {
-                        seatMap.add(new ArrayList<>(currentRowSeats));
-                    }
-                    currentRowSeats.clear();
-                    currentRow = seatRow;
-                }
-                
-                currentRowSeats.add(seat);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid seat number format: " + seat.getSeatNumber());
-                // Skip invalid seat numbers
-            }
-        }
-        
-        // Add the last row
-        if (!currentRowSeats.isEmpty()) {
-            seatMap.add(currentRowSeats);
+        return seatInventory.get(flightId).seatMap();
+    }
+    
+    /**
+     * Get the seat map together with its inventory version, for conditional (ETag) requests
+     */
+    public SeatMapSnapshot getSeatMapSnapshot(Long flightId) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
         }
         
-        return seatMap;
+        return seatInventory.get(flightId).seatMapSnapshot();
     }
     
     /**
@@ -312,37 +427,32 @@ public class SeatService {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
-        return seatRepository.countByFlightIdAndStatus(flightId, SeatStatus.AVAILABLE);
+        return seatInventory.get(flightId).count(SeatStatus.AVAILABLE);
     }
     
     public long getBookedSeatCount(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
-        return seatRepository.countByFlightIdAndStatus(flightId, SeatStatus.BOOKED);
+        return seatInventory.get(flightId).count(SeatStatus.BOOKED);
     }
     
     public long getBlockedSeatCount(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
-        return seatRepository.countByFlightIdAndStatus(flightId, SeatStatus.BLOCKED);
+        return seatInventory.get(flightId).count(SeatStatus.BLOCKED);
     }
     
     /**
-     * Get seat statistics for a flight
+     * Get seat statistics for a flight, by status and by class. Served from the inventory's counters.
      */
     public SeatStatistics getSeatStatistics(Long flightId) {
         if (flightId == null) {
             throw new IllegalArgumentException("Flight ID cannot be null");
         }
         
-        long available = getAvailableSeatCount(flightId);
-        long booked = getBookedSeatCount(flightId);
-        long blocked = getBlockedSeatCount(flightId);
-        long total = available + booked + blocked;
-        
-        return new SeatStatistics(total, available, booked, blocked);
+        return SeatStatistics.from(seatInventory.get(flightId).counts());
     }
     
     /**
@@ -350,44 +460,148 @@ public class SeatService {
      */
     @Transactional
     public void blockSeat(Long flightId, String seatNumber) {
+        updateSingleSeatStatus(flightId, seatNumber, SeatStatus.AVAILABLE, SeatStatus.BLOCKED);
+        System.out.println("Blocked seat " + seatNumber);
+    }
+    
+    @Transactional
+    public void unblockSeat(Long flightId, String seatNumber) {
+        updateSingleSeatStatus(flightId, seatNumber, SeatStatus.BLOCKED, SeatStatus.AVAILABLE);
+        System.out.println("Unblocked seat " + seatNumber);
+    }
+    
+    private void updateSingleSeatStatus(Long flightId, String seatNumber, SeatStatus expectedStatus,
+                                        SeatStatus newStatus) {
         if (flightId == null || seatNumber == null) {
             throw new IllegalArgumentException("Flight ID and seat number cannot be null");
         }
-        
-        Optional<Seat> seatOpt = seatRepository.findByFlightIdAndSeatNumber(flightId, seatNumber.trim().toUpperCase());
-        if (seatOpt.isPresent()) {
-            Seat seat = seatOpt.get();
-            if (seat.getStatus() == SeatStatus.AVAILABLE) {
-                seat.setStatus(SeatStatus.BLOCKED);
-                seatRepository.save(seat);
-                System.out.println("Blocked seat " + seatNumber);
-            } else {
-                throw new IllegalStateException("Cannot block seat " + seatNumber + " - current status: " + seat.getStatus());
-            }
-        } else {
+        SeatSelection selection = new SeatSelection();
+        selection.setSeatNumbers(List.of(seatNumber));
+        BulkSeatResult result = updateSeatStatus(flightId, selection, expectedStatus, newStatus);
+        SeatOutcome outcome = result.getSeats().get(0);
+        if (outcome.getResult() == SeatOutcome.Result.NOT_FOUND) {
             throw new IllegalArgumentException("Seat " + seatNumber + " not found");
         }
+        if (!outcome.isChanged()) {
+            String action = newStatus == SeatStatus.BLOCKED ? "block" : "unblock";
+            throw new IllegalStateException("Cannot " + action + " seat " + seatNumber
+                    + " - current status: " + outcome.getPreviousStatus());
+        }
     }
     
+    /**
+     * Block all available seats of a selection (rows, letters, class or seat numbers) in one update
+     */
     @Transactional
-    public void unblockSeat(Long flightId, String seatNumber) {
-        if (flightId == null || seatNumber == null) {
-            throw new IllegalArgumentException("Flight ID and seat number cannot be null");
+    public BulkSeatResult blockSeats(Long flightId, SeatSelection selection) {
+        return updateSeatStatus(flightId, selection, SeatStatus.AVAILABLE, SeatStatus.BLOCKED);
+    }
+    
+    /**
+     * Unblock all blocked seats of a selection in one update
+     */
+    @Transactional
+    public BulkSeatResult unblockSeats(Long flightId, SeatSelection selection) {
+        return updateSeatStatus(flightId, selection, SeatStatus.BLOCKED, SeatStatus.AVAILABLE);
+    }
+    
+    private BulkSeatResult updateSeatStatus(Long flightId, SeatSelection selection,
+                                            SeatStatus expectedStatus, SeatStatus newStatus) {
+        if (flightId == null) {
+            throw new IllegalArgumentException("Flight ID cannot be null");
+        }
+        SeatSelection normalized = normalizeSelection(selection);
+        if (!flightRepository.existsById(flightId)) {
+            throw new IllegalArgumentException("Flight not found with ID: " + flightId);
         }
         
-        Optional<Seat> seatOpt = seatRepository.findByFlightIdAndSeatNumber(flightId, seatNumber.trim().toUpperCase());
-        if (seatOpt.isPresent()) {
-            Seat seat = seatOpt.get();
-            if (seat.getStatus() == SeatStatus.BLOCKED) {
-                seat.setStatus(SeatStatus.AVAILABLE);
-                seatRepository.save(seat);
-                System.out.println("Unblocked seat " + seatNumber);
+        List<Object[]> rows = seatBatchRepository.updateStatus(flightId, normalized, expectedStatus, newStatus);
+        List<SeatOutcome> outcomes = new ArrayList<>(rows.size());
+        List<String> changedSeatNumbers = new ArrayList<>();
+        Set<String> selectedSeatNumbers = new HashSet<>();
+        for (Object[] row : rows) {
+            SeatOutcome outcome = new SeatOutcome((String) row[0], (SeatStatus) row[1], (Boolean) row[2], newStatus);
+            outcomes.add(outcome);
+            selectedSeatNumbers.add(outcome.getSeatNumber());
+            if (outcome.isChanged()) {
+                changedSeatNumbers.add(outcome.getSeatNumber());
+            }
+        }
+        // Seat numbers asked for by name that matched no seat are reported rather than dropped
+        if (normalized.getSeatNumbers() != null) {
+            for (String seatNumber : normalized.getSeatNumbers()) {
+                if (selectedSeatNumbers.add(seatNumber)) {
+                    outcomes.add(SeatOutcome.notFound(seatNumber));
+                }
+            }
+        }
+        
+        if (!changedSeatNumbers.isEmpty()) {
+            // One cache update for the whole batch once the transaction commits
+            seatInventory.recordTransitions(flightId, changedSeatNumbers, expectedStatus, newStatus);
+            if (newStatus == SeatStatus.BLOCKED) {
+                if (flightRepository.decrementAvailableSeats(flightId, changedSeatNumbers.size()) != 1) {
+                    // The count cannot cover the seats just blocked, see FlightService.takeAvailableSeats
+                    throw new BookingConflictException("Flight " + flightId + " has fewer than "
+                            + changedSeatNumbers.size() + " seats left to block");
+                }
+                flightSearchIndex.availableSeatsChanged(flightId, -changedSeatNumbers.size());
             } else {
-                throw new IllegalStateException("Cannot unblock seat " + seatNumber + " - current status: " + seat.getStatus());
+                if (flightRepository.incrementAvailableSeats(flightId, changedSeatNumbers.size()) == 1) {
+                    flightSearchIndex.availableSeatsChanged(flightId, changedSeatNumbers.size());
+                }
+                eventPublisher.publishEvent(new SeatsReleased(flightId, changedSeatNumbers.size()));
             }
-        } else {
-            throw new IllegalArgumentException("Seat " + seatNumber + " not found");
+            managedEntities.refresh(Flight.class, flightId);
         }
+        
+        System.out.println("Set " + changedSeatNumbers.size() + " of " + outcomes.size() + " selected seats on flight "
+                + flightId + " to " + newStatus);
+        return new BulkSeatResult(flightId, newStatus, outcomes);
+    }
+    
+    private SeatSelection normalizeSelection(SeatSelection selection) {
+        if (selection == null || selection.isEmpty()) {
+            throw new IllegalArgumentException("Select seats by rows, letters, seat class or seat numbers");
+        }
+        SeatSelection normalized = new SeatSelection();
+        Integer fromRow = selection.getFromRow() != null ? selection.getFromRow() : selection.getToRow();
+        Integer toRow = selection.getToRow() != null ? selection.getToRow() : selection.getFromRow();
+        if (fromRow != null && (fromRow < 1 || toRow < fromRow)) {
+            throw new IllegalArgumentException("Invalid row range: " + fromRow + "-" + toRow);
+        }
+        String fromLetter = normalizeLetter(selection.getFromLetter() != null ? selection.getFromLetter() : selection.getToLetter());
+        String toLetter = normalizeLetter(selection.getToLetter() != null ? selection.getToLetter() : selection.getFromLetter());
+        if (fromLetter != null && toLetter.compareTo(fromLetter) < 0) {
+            throw new IllegalArgumentException("Invalid letter range: " + fromLetter + "-" + toLetter);
+        }
+        normalized.setFromRow(fromRow);
+        normalized.setToRow(toRow);
+        normalized.setFromLetter(fromLetter);
+        normalized.setToLetter(toLetter);
+        normalized.setSeatClass(selection.getSeatClass());
+        if (selection.getSeatNumbers() != null && !selection.getSeatNumbers().isEmpty()) {
+            List<String> seatNumbers = new ArrayList<>(selection.getSeatNumbers().size());
+            for (String seatNumber : selection.getSeatNumbers()) {
+                if (seatNumber == null || seatNumber.isBlank()) {
+                    throw new IllegalArgumentException("Seat numbers cannot be blank");
+                }
+                seatNumbers.add(seatNumber.trim().toUpperCase());
+            }
+            normalized.setSeatNumbers(seatNumbers);
+        }
+        return normalized;
+    }
+    
+    private String normalizeLetter(String letter) {
+        if (letter == null) {
+            return null;
+        }
+        String normalized = letter.trim().toUpperCase();
+        if (normalized.length() != 1 || normalized.charAt(0) < 'A' || normalized.charAt(0) > 'Z') {
+            throw new IllegalArgumentException("Invalid seat letter: " + letter);
+        }
+        return normalized;
     }
     
     /**
@@ -408,18 +622,43 @@ public class SeatService {
         private final long available;
         private final long booked;
         private final long blocked;
+        private final long held;
+        private final Map<SeatClass, SeatStatistics> byClass;
         
         public SeatStatistics(long total, long available, long booked, long blocked) {
+            this(total, available, booked, blocked, 0, Map.of());
+        }
+        
+        public SeatStatistics(long total, long available, long booked, long blocked, long held,
+                              Map<SeatClass, SeatStatistics> byClass) {
             this.total = total;
             this.available = available;
             this.booked = booked;
             this.blocked = blocked;
+            this.held = held;
+            this.byClass = byClass;
+        }
+        
+        public static SeatStatistics from(SeatCounts counts) {
+            Map<SeatClass, SeatStatistics> byClass = new EnumMap<>(SeatClass.class);
+            for (SeatClass seatClass : SeatClass.values()) {
+                long total = counts.getTotal(seatClass);
+                if (total > 0) {
+                    byClass.put(seatClass, new SeatStatistics(total,
+                            counts.get(SeatStatus.AVAILABLE, seatClass), counts.get(SeatStatus.BOOKED, seatClass),
+                            counts.get(SeatStatus.BLOCKED, seatClass), counts.get(SeatStatus.HELD, seatClass), Map.of()));
+                }
+            }
+            return new SeatStatistics(counts.getTotal(), counts.get(SeatStatus.AVAILABLE),
+                    counts.get(SeatStatus.BOOKED), counts.get(SeatStatus.BLOCKED), counts.get(SeatStatus.HELD), byClass);
         }
         
         public long getTotal() { return total; }
         public long getAvailable() { return available; }
         public long getBooked() { return booked; }
         public long getBlocked() { return blocked; }
+        public long getHeld() { return held; }
+        public Map<SeatClass, SeatStatistics> getByClass() { return byClass; }
         
         public double getOccupancyRate() {
             return total > 0 ? (double) booked / total * 100 : 0;
@@ -427,8 +666,127 @@ public class SeatService {
         
         @Override
         public String toString() {
-            return String.format("SeatStatistics{total=%d, available=%d, booked=%d, blocked=%d, occupancy=%.1f%%}", 
-                               total, available, booked, blocked, getOccupancyRate());
+            return String.format("SeatStatistics{total=%d, available=%d, booked=%d, blocked=%d, held=%d, occupancy=%.1f%%}", 
+                               total, available, booked, blocked, held, getOccupancyRate());
+        }
+    }
+    
+    /**
+     * Inner class for the result of a bulk block/unblock
+     */
+    public static class BulkSeatResult {
+        private final Long flightId;
+        private final SeatStatus targetStatus;
+        private final List<SeatOutcome> seats;
+        
+        public BulkSeatResult(Long flightId, SeatStatus targetStatus, List<SeatOutcome> seats) {
+            this.flightId = flightId;
+            this.targetStatus = targetStatus;
+            this.seats = seats;
+        }
+        
+        public Long getFlightId() { return flightId; }
+        public SeatStatus getTargetStatus() { return targetStatus; }
+        public List<SeatOutcome> getSeats() { return seats; }
+        
+        public int getSelected() {
+            return seats.size() - getNotFound();
+        }
+        
+        public int getChanged() {
+            return count(SeatOutcome.Result.CHANGED);
+        }
+        
+        public int getSkipped() {
+            return count(SeatOutcome.Result.SKIPPED);
+        }
+        
+        public int getNotFound() {
+            return count(SeatOutcome.Result.NOT_FOUND);
+        }
+        
+        private int count(SeatOutcome.Result result) {
+            return (int) seats.stream().filter(seat -> seat.getResult() == result).count();
+        }
+    }
+    
+    /**
+     * Outcome for one seat of a bulk update; seats in another status than expected are skipped, seat numbers
+     * that match no seat of the selection are not found
+     */
+    public static class SeatOutcome {
+        
+        public enum Result {
+            CHANGED, SKIPPED, NOT_FOUND
+        }
+        
+        private final String seatNumber;
+        private final SeatStatus previousStatus;
+        private final boolean changed;
+        private final SeatStatus status;
+        private final Result result;
+        
+        public SeatOutcome(String seatNumber, SeatStatus previousStatus, boolean changed, SeatStatus targetStatus) {
+            this.seatNumber = seatNumber;
+            this.previousStatus = previousStatus;
+            this.changed = changed;
+            this.status = changed ? targetStatus : previousStatus;
+            this.result = changed ? Result.CHANGED : Result.SKIPPED;
+        }
+        
+        private SeatOutcome(String seatNumber) {
+            this.seatNumber = seatNumber;
+            this.previousStatus = null;
+            this.changed = false;
+            this.status = null;
+            this.result = Result.NOT_FOUND;
+        }
+        
+        public static SeatOutcome notFound(String seatNumber) {
+            return new SeatOutcome(seatNumber);
+        }
+        
+        public String getSeatNumber() { return seatNumber; }
+        public SeatStatus getPreviousStatus() { return previousStatus; }
+        public boolean isChanged() { return changed; }
+        public SeatStatus getStatus() { return status; }
+        public Result getResult() { return result; }
+    }
+    
+    /**
+     * Published when seats of a flight become available again (cancellation or unblocking);
+     * listeners that run after commit see the seats as available
+     */
+    public static class SeatsReleased {
+        private final Long flightId;
+        private final int seatCount;
+        
+        public SeatsReleased(Long flightId, int seatCount) {
+            this.flightId = flightId;
+            this.seatCount = seatCount;
+        }
+        
+        public Long getFlightId() { return flightId; }
+        public int getSeatCount() { return seatCount; }
+    }
+    
+    /**
+     * Inner class for the result of a group allocation
+     */
+    public static class GroupAllocation {
+        private final List<Seat> seats;
+        private final int rows;
+        
+        public GroupAllocation(List<Seat> seats, int rows) {
+            this.seats = seats;
+            this.rows = rows;
+        }
+        
+        public List<Seat> getSeats() { return seats; }
+        public int getRows() { return rows; }
+        
+        public boolean isSplit() {
+            return rows > 1;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,321 @@
+package com.kusm.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatPosition;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.model.SeatInventorySnapshot;
+import com.kusm.model.SeatTransition;
+import com.kusm.repository.SeatJournalRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.repository.SeatSnapshotRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Periodic per-flight snapshots of the seats table, and inventory warm-up from them on startup.
+ *
+ * A snapshot is read in one REPEATABLE READ transaction together with the last journal id of every seat
+ * it saw and the lowest transaction id still running at that moment (the horizon). Any change the snapshot
+ * missed was journaled by a transaction at or above the horizon, so replay reads only those entries and
+ * applies, per seat, the newest one that is newer than the snapshot's. Flights without a snapshot are
+ * loaded from the seats table on first access as before.
+ */
+@Component
+public class SeatSnapshotService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatSnapshotService.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String TX_HORIZON = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    private static final String LAST_ENTRY_PER_SEAT =
+            "SELECT seat_number, MAX(id) FROM seat_journal WHERE flight_id = ? GROUP BY seat_number";
+
+    @Autowired
+    private SeatSnapshotRepository seatSnapshotRepository;
+
+    @Autowired
+    private SeatJournalRepository seatJournalRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatJournal seatJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.journal.snapshots-retained:3}")
+    private int snapshotsRetained;
+
+    @Value("${booking.journal.replay-on-startup:true}")
+    private boolean replayOnStartup;
+
+    private TransactionTemplate snapshotTransaction;
+    private TransactionTemplate readTransaction;
+    private final AtomicLong snapshotsTaken = new AtomicLong();
+    private final AtomicLong flightsRestored = new AtomicLong();
+    private final AtomicLong entriesReplayed = new AtomicLong();
+    private volatile long lastRestoreMs;
+
+    @PostConstruct
+    void init() {
+        snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Warm the inventory before the application starts taking requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!replayOnStartup) {
+            return;
+        }
+        try {
+            // Flights whose mapped copy is current need no snapshot
+            int mapped = seatInventory.restoreFromMappedStore();
+            if (mapped > 0) {
+                logger.info("Restored seat inventory of {} flights from the mapped inventory file", mapped);
+            }
+            restoreUpcomingFlights();
+        } catch (RuntimeException e) {
+            logger.error("Seat inventory restore failed, flights will load from the seats table: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.journal.snapshot-interval-ms:300000}",
+               initialDelayString = "${booking.journal.snapshot-interval-ms:300000}")
+    public void scheduledSnapshots() {
+        for (Long flightId : seatJournal.drainChangedFlights()) {
+            try {
+                takeSnapshot(flightId);
+            } catch (RuntimeException e) {
+                seatJournal.markChanged(flightId);
+                logger.error("Seat snapshot of flight {} failed: {}", flightId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Snapshot all seats of a flight; returns false when the flight has no seats yet
+     */
+    public boolean takeSnapshot(Long flightId) {
+        Boolean taken = snapshotTransaction.execute(status -> {
+            // First statement: fixes the transaction's snapshot, which the reads below share
+            Long txHorizon = jdbcTemplate.queryForObject(TX_HORIZON, Long.class);
+            List<Seat> seats = seatRepository.findByFlightId(flightId);
+            if (seats.isEmpty()) {
+                return false;
+            }
+            Map<String, Long> lastEntries = new HashMap<>(seats.size() * 2);
+            jdbcTemplate.query(LAST_ENTRY_PER_SEAT, rs -> {
+                lastEntries.put(rs.getString(1), rs.getLong(2));
+            }, flightId);
+
+            SeatInventorySnapshot snapshot = new SeatInventorySnapshot();
+            snapshot.setFlightId(flightId);
+            snapshot.setTxHorizon(txHorizon);
+            snapshot.setJournalSeq(lastEntries.values().stream().mapToLong(Long::longValue).max().orElse(0L));
+            snapshot.setSeatCount(seats.size());
+            snapshot.setTakenAt(LocalDateTime.now());
+            snapshot.setPayload(encode(seats, lastEntries));
+            seatSnapshotRepository.save(snapshot);
+            seatSnapshotRepository.deleteOlderThanLatest(flightId, Math.max(1, snapshotsRetained));
+            return true;
+        });
+        if (Boolean.TRUE.equals(taken)) {
+            snapshotsTaken.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rebuild the inventory of every flight that departs in the future and has a snapshot
+     */
+    public int restoreUpcomingFlights() {
+        long start = System.currentTimeMillis();
+        List<Long> snapshotIds = seatSnapshotRepository.findLatestIdsForDeparturesAfter(LocalDateTime.now());
+        int restored = 0;
+        for (Long snapshotId : snapshotIds) {
+            try {
+                if (Boolean.TRUE.equals(readTransaction.execute(status -> restore(snapshotId)))) {
+                    restored++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not restore seat snapshot {}: {}", snapshotId, e.getMessage());
+            }
+        }
+        lastRestoreMs = System.currentTimeMillis() - start;
+        flightsRestored.addAndGet(restored);
+        logger.info("Restored seat inventory of {} of {} flights from snapshots in {} ms",
+                restored, snapshotIds.size(), lastRestoreMs);
+        return restored;
+    }
+
+    private boolean restore(Long snapshotId) {
+        SeatInventorySnapshot snapshot = seatSnapshotRepository.findById(snapshotId).orElse(null);
+        if (snapshot == null) {
+            return false;
+        }
+        Long flightId = snapshot.getFlightId();
+        List<SnapshotSeat> snapshotSeats = decode(snapshot.getPayload());
+        Map<String, SnapshotSeat> bySeatNumber = new HashMap<>(snapshotSeats.size() * 2);
+        snapshotSeats.forEach(s -> bySeatNumber.put(s.seat.getSeatNumber(), s));
+
+        // Tail in id order, so the last entry of a seat wins
+        Map<String, SeatTransition> latest = new HashMap<>();
+        for (SeatTransition transition : seatJournalRepository.findTail(flightId, snapshot.getTxHorizon())) {
+            latest.put(transition.getSeatNumber(), transition);
+        }
+        int replayed = 0;
+        for (SeatTransition transition : latest.values()) {
+            SnapshotSeat snapshotSeat = bySeatNumber.get(transition.getSeatNumber());
+            if (snapshotSeat == null) {
+                logger.warn("Journal of flight {} names seat {} missing from snapshot {}, skipping restore",
+                        flightId, transition.getSeatNumber(), snapshotId);
+                return false;
+            }
+            if (transition.getId() > snapshotSeat.lastJournalId) {
+                snapshotSeat.seat.setStatus(transition.getToStatus());
+                replayed++;
+            }
+        }
+
+        List<Seat> seats = new ArrayList<>(snapshotSeats.size());
+        snapshotSeats.forEach(s -> seats.add(s.seat));
+        entriesReplayed.addAndGet(replayed);
+        return seatInventory.restore(flightId, seats);
+    }
+
+    static byte[] encode(List<Seat> seats, Map<String, Long> lastEntries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(seats.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(seats.size());
+            for (Seat seat : seats) {
+                out.writeLong(seat.getId() != null ? seat.getId() : 0L);
+                out.writeUTF(seat.getSeatNumber());
+                out.writeInt(seat.getRowNumber() != null ? seat.getRowNumber() : -1);
+                out.writeUTF(seat.getColumnCode() != null ? seat.getColumnCode() : "");
+                out.writeByte(seat.getSeatClass() != null ? seat.getSeatClass().ordinal() : -1);
+                out.writeByte(seat.getPosition() != null ? seat.getPosition().ordinal() : -1);
+                out.writeBoolean(seat.isExitRow());
+                out.writeByte(seat.getStatus().ordinal());
+                out.writeLong(lastEntries.getOrDefault(seat.getSeatNumber(), 0L));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<SnapshotSeat> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int format = in.readInt();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported seat snapshot format " + format);
+            }
+            int count = in.readInt();
+            List<SnapshotSeat> seats = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Seat seat = new Seat();
+                seat.setId(in.readLong());
+                seat.setSeatNumber(in.readUTF());
+                int row = in.readInt();
+                seat.setRowNumber(row >= 0 ? row : null);
+                String column = in.readUTF();
+                seat.setColumnCode(column.isEmpty() ? null : column);
+                byte seatClass = in.readByte();
+                seat.setSeatClass(seatClass >= 0 ? SeatClass.values()[seatClass] : null);
+                byte position = in.readByte();
+                seat.setPosition(position >= 0 ? SeatPosition.values()[position] : null);
+                seat.setExitRow(in.readBoolean());
+                seat.setStatus(SeatStatus.values()[in.readByte()]);
+                seats.add(new SnapshotSeat(seat, in.readLong()));
+            }
+            return seats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Snapshot and replay counters
+     */
+    public SnapshotStatistics getStatistics() {
+        return new SnapshotStatistics(snapshotsTaken.get(), flightsRestored.get(), entriesReplayed.get(),
+                lastRestoreMs, seatJournal.getAppendedCount());
+    }
+
+    static final class SnapshotSeat {
+        private final Seat seat;
+        private final long lastJournalId;
+
+        SnapshotSeat(Seat seat, long lastJournalId) {
+            this.seat = seat;
+            this.lastJournalId = lastJournalId;
+        }
+    }
+
+    /**
+     * Inner class for snapshot statistics
+     */
+    public static class SnapshotStatistics {
+        private final long snapshotsTaken;
+        private final long flightsRestored;
+        private final long entriesReplayed;
+        private final long lastRestoreMs;
+        private final long journalEntriesAppended;
+
+        public SnapshotStatistics(long snapshotsTaken, long flightsRestored, long entriesReplayed,
+                                  long lastRestoreMs, long journalEntriesAppended) {
+            this.snapshotsTaken = snapshotsTaken;
+            this.flightsRestored = flightsRestored;
+            this.entriesReplayed = entriesReplayed;
+            this.lastRestoreMs = lastRestoreMs;
+            this.journalEntriesAppended = journalEntriesAppended;
+        }
+
+        public long getSnapshotsTaken() { return snapshotsTaken; }
+        public long getFlightsRestored() { return flightsRestored; }
+        public long getEntriesReplayed() { return entriesReplayed; }
+        public long getLastRestoreMs() { return lastRestoreMs; }
+        public long getJournalEntriesAppended() { return journalEntriesAppended; }
+    }
+}
@@ -0,0 +1,594 @@
+package com.kusm.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.model.WaitlistEntry;
+import com.kusm.model.WaitlistEntry.WaitlistStatus;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.WaitlistRepository;
+import com.kusm.service.SeatService.SeatsReleased;
+import com.kusm.utils.TransactionUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-flight, per-class waitlists. Entries are stored in the waitlist_entries table and mirrored in
+ * in-memory priority queues (loaded on first use). When seats are released the flight is promoted on a
+ * background thread, so cancellations do not wait for it: waiting passengers are taken from the head of
+ * their class queue in batches, and every batch gets its reservations and seats in one transaction.
+ * A promotion only holds the seat: the reservation stays PENDING until the passenger pays for it, and
+ * promotions left unpaid past the payment window are cancelled and their seats offered to the next in line.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private FlightLockManager flightLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${booking.waitlist.promotion-batch-size:20}")
+    private int batchSize;
+
+    @Value("${booking.waitlist.payment-window-minutes:30}")
+    private long paymentWindowMinutes;
+
+    private final Map<Long, FlightWaitlist> waitlists = new ConcurrentHashMap<>();
+    private final Set<Long> pendingPromotions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong promoted = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private ExecutorService promoter;
+
+    @PostConstruct
+    void init() {
+        promoter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "waitlist-promoter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        promoter.shutdownNow();
+    }
+
+    /**
+     * Put a passenger on the waitlist of a flight's cabin class. Only sold-out classes can be joined.
+     * Passengers joining here are served first come first served; priority is never taken from the client.
+     */
+    @Transactional
+    public WaitlistEntry join(Long flightId, SeatClass seatClass, String passengerName, String passengerEmail,
+                              String passengerPhone) {
+        if (flightId == null || seatClass == null) {
+            throw new IllegalArgumentException("Flight ID and seat class cannot be null");
+        }
+        Flight flight = flightRepository.findById(flightId)
+                .orElseThrow(() -> new IllegalArgumentException("Flight not found with ID: " + flightId));
+        if (seatInventory.get(flightId).count(SeatStatus.AVAILABLE, seatClass) > 0) {
+            throw new IllegalStateException(seatClass + " seats are still available on flight " + flightId);
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setFlight(flight);
+        entry.setSeatClass(seatClass);
+        entry.setPassengerName(passengerName);
+        entry.setPassengerEmail(passengerEmail);
+        entry.setPassengerPhone(passengerPhone);
+        WaitlistEntry saved = waitlistRepository.save(entry);
+
+        QueuedEntry queued = new QueuedEntry(saved);
+        TransactionUtils.afterCommit(() -> {
+            // Blocks while the flight's queue is being loaded, so the entry lands in it either way
+            FlightWaitlist waitlist = waitlists.get(flightId);
+            if (waitlist != null) {
+                waitlist.add(queued);
+            }
+            // A seat may have been released between the availability check and the commit
+            schedulePromotion(flightId);
+        });
+        logger.info("Waitlisted {} for {} on flight {}", passengerName, seatClass, flightId);
+        return saved;
+    }
+
+    /**
+     * Take a waiting passenger off the waitlist; returns false when the entry was no longer waiting
+     */
+    @Transactional
+    public boolean leave(Long entryId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found with ID: " + entryId));
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return false;
+        }
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        waitlistRepository.save(entry);
+
+        Long flightId = entry.getFlight().getId();
+        SeatClass seatClass = entry.getSeatClass();
+        TransactionUtils.afterCommit(() -> {
+            FlightWaitlist waitlist = waitlists.get(flightId);
+            if (waitlist != null) {
+                waitlist.remove(seatClass, entryId);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Pay for a promoted entry's PENDING reservation and confirm it. Fails once the payment window has passed.
+     */
+    @Transactional
+    public Reservation confirmPromotion(Long entryId, String cardNumber, String cardHolderName) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found with ID: " + entryId));
+        // The expiry job takes the flight lock too, so it cannot cancel the reservation while it is paid for.
+        // The lazy reservation is only read once the lock is held.
+        flightLockManager.lockForTransaction(entry.getFlight().getId());
+        Reservation reservation = entry.getReservation();
+        if (entry.getStatus() != WaitlistStatus.PROMOTED || reservation == null
+                || reservation.getStatus() != Reservation.BookingStatus.PENDING) {
+            throw new IllegalStateException("Waitlist entry " + entryId + " has no reservation awaiting payment");
+        }
+        if (entry.getPromotedAt().isBefore(LocalDateTime.now().minusMinutes(paymentWindowMinutes))) {
+            throw new IllegalStateException("The payment window for waitlist entry " + entryId + " has closed");
+        }
+        paymentService.processPayment(reservation.getId(), cardNumber, cardHolderName, reservation.getTotalAmount());
+        reservation.setStatus(Reservation.BookingStatus.CONFIRMED);
+        return reservationRepository.save(reservation);
+    }
+
+    /**
+     * Cancel promotions that were not paid within the payment window; the released seats go to the next
+     * passengers in the queue
+     */
+    @Scheduled(fixedDelayString = "${booking.waitlist.sweep-interval-ms:60000}",
+               initialDelayString = "${booking.waitlist.sweep-interval-ms:60000}")
+    public void expireUnpaidPromotions() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(paymentWindowMinutes);
+            for (WaitlistEntry stale : waitlistRepository.findPromotedBefore(WaitlistStatus.PROMOTED,
+                    Reservation.BookingStatus.PENDING, cutoff)) {
+                Long flightId = stale.getFlight().getId();
+                transactionTemplate.executeWithoutResult(status -> expirePromotion(flightId, stale.getId(), cutoff));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Waitlist payment expiry failed: {}", e.getMessage());
+        }
+    }
+
+    private void expirePromotion(Long flightId, Long entryId, LocalDateTime cutoff) {
+        // Re-read under the lock: the passenger may have paid since the query
+        flightLockManager.lockForTransaction(flightId);
+        WaitlistEntry entry = waitlistRepository.findById(entryId).orElse(null);
+        Reservation reservation = entry != null ? entry.getReservation() : null;
+        if (reservation == null || entry.getStatus() != WaitlistStatus.PROMOTED
+                || reservation.getStatus() != Reservation.BookingStatus.PENDING
+                || !entry.getPromotedAt().isBefore(cutoff)) {
+            return;
+        }
+        reservation.setStatus(Reservation.BookingStatus.CANCELLED);
+        reservationRepository.save(reservation);
+        entry.setStatus(WaitlistStatus.EXPIRED);
+        waitlistRepository.save(entry);
+        int released = seatService.releaseSeatsForReservation(reservation.getId());
+        if (released > 0) {
+            flightService.releaseAvailableSeats(flightId, released);
+        }
+        logger.info("Waitlist entry {} expired unpaid, reservation {} cancelled",
+                entryId, reservation.getBookingReference());
+    }
+
+    /**
+     * Get one entry with its current queue position
+     */
+    @Transactional(readOnly = true)
+    public WaitlistView getEntry(Long entryId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found with ID: " + entryId));
+        int position = entry.getStatus() == WaitlistStatus.WAITING
+                ? waitlistFor(entry.getFlight().getId()).position(entry.getSeatClass(), entryId) : 0;
+        LocalDateTime paymentDueAt = entry.getStatus() == WaitlistStatus.PROMOTED
+                && entry.getReservation().getStatus() == Reservation.BookingStatus.PENDING
+                ? entry.getPromotedAt().plusMinutes(paymentWindowMinutes) : null;
+        return new WaitlistView(entry, position, paymentDueAt);
+    }
+
+    /**
+     * Get the waiting passengers of a flight in queue order, numbered per class
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistView> getWaitlist(Long flightId) {
+        Map<SeatClass, Integer> positions = new EnumMap<>(SeatClass.class);
+        List<WaitlistView> views = new ArrayList<>();
+        for (WaitlistEntry entry : waitlistRepository.findByFlightIdAndStatusInQueueOrder(flightId, WaitlistStatus.WAITING)) {
+            views.add(new WaitlistView(entry, positions.merge(entry.getSeatClass(), 1, Integer::sum), null));
+        }
+        return views;
+    }
+
+    /**
+     * Released seats trigger a promotion run once the releasing transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatsReleased(SeatsReleased event) {
+        schedulePromotion(event.getFlightId());
+    }
+
+    /**
+     * Safety net for releases whose promotion failed or happened while the application was down
+     */
+    @Scheduled(fixedDelayString = "${booking.waitlist.sweep-interval-ms:60000}",
+               initialDelayString = "${booking.waitlist.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            for (Long flightId : waitlistRepository.findFlightIdsWithStatus(WaitlistStatus.WAITING)) {
+                if (seatInventory.get(flightId).count(SeatStatus.AVAILABLE) > 0) {
+                    schedulePromotion(flightId);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Waitlist sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a promotion run for a flight; requests for a flight that is already queued are coalesced
+     */
+    public void schedulePromotion(Long flightId) {
+        if (flightId == null || !pendingPromotions.add(flightId)) {
+            return;
+        }
+        promoter.execute(() -> {
+            // Releases arriving from here on queue another run
+            pendingPromotions.remove(flightId);
+            try {
+                promote(flightId);
+            } catch (RuntimeException e) {
+                logger.error("Waitlist promotion failed for flight {}: {}", flightId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Promote waiting passengers of a flight while their class has free seats; returns the number promoted
+     */
+    public int promote(Long flightId) {
+        FlightWaitlist waitlist = waitlistFor(flightId);
+        int total = 0;
+        for (SeatClass seatClass : SeatClass.values()) {
+            while (true) {
+                int free = seatInventory.get(flightId).count(SeatStatus.AVAILABLE, seatClass);
+                List<QueuedEntry> batch = waitlist.poll(seatClass, Math.min(Math.max(1, batchSize), free));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                BatchResult result;
+                try {
+                    result = transactionTemplate.execute(status -> promoteBatch(flightId, seatClass, batch));
+                } catch (RuntimeException e) {
+                    failedBatches.incrementAndGet();
+                    waitlist.addAll(batch);
+                    logger.warn("Waitlist batch for flight {} ({}) rolled back, requeued {} entries: {}",
+                            flightId, seatClass, batch.size(), e.getMessage());
+                    return total;
+                }
+                waitlist.addAll(result.unseated);
+                total += result.promoted;
+                if (!result.unseated.isEmpty()) {
+                    // The class filled up again (e.g. a concurrent booking took the seat)
+                    break;
+                }
+            }
+        }
+        if (total > 0) {
+            promoted.addAndGet(total);
+            logger.info("Promoted {} waitlisted passengers on flight {}", total, flightId);
+        }
+        return total;
+    }
+
+    /**
+     * Seat a batch of one class in queue order under the flight lock. Entries that left the waitlist in the
+     * meantime are dropped; entries behind the first one that finds no seat are handed back.
+     */
+    private BatchResult promoteBatch(Long flightId, SeatClass seatClass, List<QueuedEntry> batch) {
+        flightLockManager.lockForTransaction(flightId);
+        Flight flight = flightRepository.findById(flightId)
+                .orElseThrow(() -> new IllegalArgumentException("Flight not found with ID: " + flightId));
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(queued -> ids.add(queued.id));
+        Map<Long, WaitlistEntry> entries = new HashMap<>();
+        waitlistRepository.findAllById(ids).forEach(entry -> entries.put(entry.getId(), entry));
+
+        BatchResult result = new BatchResult();
+        for (int i = 0; i < batch.size(); i++) {
+            WaitlistEntry entry = entries.get(batch.get(i).id);
+            if (entry == null || entry.getStatus() != WaitlistStatus.WAITING) {
+                continue;
+            }
+            Reservation reservation = reservationRepository.save(newReservation(entry, flight));
+            Seat seat = seatService.assignSeatInClass(flightId, reservation, seatClass);
+            if (seat == null) {
+                reservationRepository.delete(reservation);
+                result.unseated.addAll(batch.subList(i, batch.size()));
+                break;
+            }
+            entry.setStatus(WaitlistStatus.PROMOTED);
+            entry.setReservation(reservation);
+            entry.setPromotedAt(LocalDateTime.now());
+            result.promoted++;
+            logger.info("Waitlist entry {} promoted to reservation {} (seat {})",
+                    entry.getId(), reservation.getBookingReference(), seat.getSeatNumber());
+        }
+        if (result.promoted > 0) {
+            waitlistRepository.saveAll(entries.values());
+            flightService.takeAvailableSeats(flightId, result.promoted);
+        }
+        return result;
+    }
+
+    private Reservation newReservation(WaitlistEntry entry, Flight flight) {
+        Reservation reservation = new Reservation();
+        reservation.setFlight(flight);
+        reservation.setBookingReference("FL" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        reservation.setPassengerName(entry.getPassengerName());
+        reservation.setPassengerEmail(entry.getPassengerEmail());
+        reservation.setPassengerPhone(entry.getPassengerPhone());
+        reservation.setPreferredSeatClass(entry.getSeatClass());
+        reservation.setTotalAmount(flight.getPrice());
+        // Held for the passenger until paid through confirmPromotion, or cancelled when the window closes
+        reservation.setStatus(Reservation.BookingStatus.PENDING);
+        return reservation;
+    }
+
+    private FlightWaitlist waitlistFor(Long flightId) {
+        FlightWaitlist waitlist = waitlists.get(flightId);
+        if (waitlist == null) {
+            FlightWaitlist created = new FlightWaitlist();
+            waitlist = waitlists.putIfAbsent(flightId, created);
+            if (waitlist == null) {
+                waitlist = created;
+            }
+        }
+        // The query runs outside the map, under the flight's own queue lock only
+        waitlist.ensureLoaded(() -> waitlistRepository.findByFlightIdAndStatusInQueueOrder(flightId, WaitlistStatus.WAITING));
+        return waitlist;
+    }
+
+    /**
+     * Promotion counters
+     */
+    public WaitlistStatistics getStatistics() {
+        int waiting = 0;
+        for (FlightWaitlist waitlist : waitlists.values()) {
+            waiting += waitlist.size();
+        }
+        return new WaitlistStatistics(waitlists.size(), waiting, promoted.get(), failedBatches.get());
+    }
+
+    /**
+     * Queue key of a waiting entry: higher priority first, then earliest request, then id
+     */
+    private static final class QueuedEntry {
+        private static final Comparator<QueuedEntry> ORDER = Comparator
+                .comparingInt((QueuedEntry e) -> -e.priority)
+                .thenComparing(e -> e.requestedAt)
+                .thenComparingLong(e -> e.id);
+
+        private final long id;
+        private final SeatClass seatClass;
+        private final int priority;
+        private final LocalDateTime requestedAt;
+
+        QueuedEntry(WaitlistEntry entry) {
+            this.id = entry.getId();
+            this.seatClass = entry.getSeatClass();
+            this.priority = entry.getPriority();
+            this.requestedAt = entry.getRequestedAt();
+        }
+    }
+
+    /**
+     * The class queues of one flight
+     */
+    private static final class FlightWaitlist {
+        private final Map<SeatClass, PriorityQueue<QueuedEntry>> queues = new EnumMap<>(SeatClass.class);
+        private final Set<Long> queuedIds = new HashSet<>();
+        private boolean loaded;
+
+        /**
+         * Fill the queues from the stored entries once; entries added or removed meanwhile wait for the load
+         */
+        synchronized void ensureLoaded(Supplier<List<WaitlistEntry>> loader) {
+            if (!loaded) {
+                loader.get().forEach(entry -> add(new QueuedEntry(entry)));
+                loaded = true;
+            }
+        }
+
+        synchronized void add(QueuedEntry entry) {
+            if (queuedIds.add(entry.id)) {
+                queues.computeIfAbsent(entry.seatClass, c -> new PriorityQueue<>(QueuedEntry.ORDER)).add(entry);
+            }
+        }
+
+        synchronized void addAll(List<QueuedEntry> entries) {
+            entries.forEach(this::add);
+        }
+
+        synchronized void remove(SeatClass seatClass, long id) {
+            PriorityQueue<QueuedEntry> queue = queues.get(seatClass);
+            if (queue != null && queuedIds.remove(id)) {
+                queue.removeIf(entry -> entry.id == id);
+            }
+        }
+
+        synchronized List<QueuedEntry> poll(SeatClass seatClass, int max) {
+            List<QueuedEntry> batch = new ArrayList<>();
+            PriorityQueue<QueuedEntry> queue = queues.get(seatClass);
+            while (queue != null && batch.size() < max && !queue.isEmpty()) {
+                QueuedEntry entry = queue.poll();
+                queuedIds.remove(entry.id);
+                batch.add(entry);
+            }
+            return batch;
+        }
+
+        synchronized int position(SeatClass seatClass, long id) {
+            PriorityQueue<QueuedEntry> queue = queues.get(seatClass);
+            QueuedEntry target = null;
+            if (queue != null) {
+                for (QueuedEntry entry : queue) {
+                    if (entry.id == id) {
+                        target = entry;
+                        break;
+                    }
+                }
+            }
+            if (target == null) {
+                // Taken off the queue by a promotion that is still running
+                return 0;
+            }
+            int ahead = 0;
+            for (QueuedEntry entry : queue) {
+                if (QueuedEntry.ORDER.compare(entry, target) < 0) {
+                    ahead++;
+                }
+            }
+            return ahead + 1;
+        }
+
+        synchronized int size() {
+            return queuedIds.size();
+        }
+    }
+
+    private static final class BatchResult {
+        private int promoted;
+        private final List<QueuedEntry> unseated = new ArrayList<>();
+    }
+
+    /**
+     * Inner class for a waitlist entry as returned to clients
+     */
+    public static class WaitlistView {
+        private final Long id;
+        private final Long flightId;
+        private final SeatClass seatClass;
+        private final String passengerName;
+        private final int priority;
+        private final WaitlistStatus status;
+        private final int position;
+        private final String bookingReference;
+        private final LocalDateTime requestedAt;
+        private final LocalDateTime promotedAt;
+        private final LocalDateTime paymentDueAt;
+
+        public WaitlistView(WaitlistEntry entry, int position, LocalDateTime paymentDueAt) {
+            this.id = entry.getId();
+            this.flightId = entry.getFlight().getId();
+            this.seatClass = entry.getSeatClass();
+            this.passengerName = entry.getPassengerName();
+            this.priority = entry.getPriority();
+            this.status = entry.getStatus();
+            this.position = position;
+            this.bookingReference = entry.getReservation() != null ? entry.getReservation().getBookingReference() : null;
+            this.requestedAt = entry.getRequestedAt();
+            this.promotedAt = entry.getPromotedAt();
+            this.paymentDueAt = paymentDueAt;
+        }
+
+        public Long getId() { return id; }
+        public Long getFlightId() { return flightId; }
+        public SeatClass getSeatClass() { return seatClass; }
+        public String getPassengerName() { return passengerName; }
+        public int getPriority() { return priority; }
+        public WaitlistStatus getStatus() { return status; }
+        public int getPosition() { return position; }
+        public String getBookingReference() { return bookingReference; }
+        public LocalDateTime getRequestedAt() { return requestedAt; }
+        public LocalDateTime getPromotedAt() { return promotedAt; }
+        public LocalDateTime getPaymentDueAt() { return paymentDueAt; }
+    }
+
+    /**
+     * Inner class for waitlist statistics
+     */
+    public static class WaitlistStatistics {
+        private final int loadedFlights;
+        private final int waiting;
+        private final long promoted;
+        private final long failedBatches;
+
+        public WaitlistStatistics(int loadedFlights, int waiting, long promoted, long failedBatches) {
+            this.loadedFlights = loadedFlights;
+            this.waiting = waiting;
+            this.promoted = promoted;
+            this.failedBatches = failedBatches;
+        }
+
+        public int getLoadedFlights() { return loadedFlights; }
+        public int getWaiting() { return waiting; }
+        public long getPromoted() { return promoted; }
+        public long getFailedBatches() { return failedBatches; }
+    }
+}
@@ -0,0 +1,183 @@
+package com.kusm.utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timer wheel for large numbers of short-lived timeouts.
+ * Scheduling and cancelling are O(1); a single worker thread advances the wheel one bucket per tick
+ * and only looks at the timeouts hashed into that bucket, so idle timeouts cost nothing.
+ */
+public class HashedTimerWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] buckets;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Executor taskExecutor;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long currentTick;
+
+    /**
+     * @param tickDuration  resolution of the wheel
+     * @param wheelSize     number of buckets, rounded up to a power of two
+     * @param taskExecutor  executor that runs expired tasks, so slow tasks do not hold up the wheel
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Executor taskExecutor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        int bucketCount = Integer.highestOneBit(Math.max(1, wheelSize) * 2 - 1);
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.buckets = new Queue[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = bucketCount - 1;
+        this.taskExecutor = taskExecutor;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedule a task to run after the given delay
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timer wheel has been stopped");
+        }
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        size.incrementAndGet();
+        return timeout;
+    }
+
+    /**
+     * Number of scheduled timeouts that have neither fired nor been cancelled
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = tickNanos * (currentTick + 1);
+            long sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferPending();
+            expireBucket(buckets[(int) (currentTick & mask)], tickDeadline);
+            currentTick++;
+        }
+    }
+
+    /**
+     * Move newly scheduled timeouts into their buckets. Buckets are only touched by the worker thread.
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - currentTick) / buckets.length;
+            // Deadlines already in the past go into the current bucket
+            long tick = Math.max(ticks, currentTick);
+            buckets[(int) (tick & mask)].add(timeout);
+        }
+    }
+
+    private void expireBucket(Queue<Timeout> bucket, long tickDeadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                iterator.remove();
+                if (timeout.fire()) {
+                    size.decrementAndGet();
+                    try {
+                        taskExecutor.execute(timeout.task);
+                    } catch (RuntimeException e) {
+                        logger.error("Timer task failed to start: {}", e.getMessage(), e);
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * Handle to a scheduled task
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+        private volatile boolean fired;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        private synchronized boolean fire() {
+            if (cancelled) {
+                return false;
+            }
+            fired = true;
+            return true;
+        }
+
+        /**
+         * Cancel the task. Returns false if it already fired or was cancelled before.
+         */
+        public synchronized boolean cancel() {
+            if (cancelled || fired) {
+                return false;
+            }
+            cancelled = true;
+            size.decrementAndGet();
+            return true;
+        }
+
+        public boolean isCancelled() { return cancelled; }
+
+        public boolean isExpired() { return fired; }
+    }
+}
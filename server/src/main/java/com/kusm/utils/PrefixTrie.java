@@ -0,0 +1,140 @@
+package com.kusm.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive prefix trie of weighted keys that answers "best K keys starting with this prefix".
+ * Every node keeps the top K keys of its subtree, so a lookup only walks the prefix and copies one
+ * small array. Weights only grow, which keeps the per-node lists exact without revisiting subtrees.
+ * Lookups take no lock; adds are serialized and replace the lists they change.
+ */
+public class PrefixTrie {
+
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingLong((Entry entry) -> entry.weight).reversed().thenComparing(entry -> entry.normalized);
+
+    private final int capacity;
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity  number of best keys kept per node, the largest K a lookup can return
+     */
+    public PrefixTrie(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a key or raise its weight. The first spelling of a key is the one returned by lookups.
+     */
+    public synchronized void add(String key, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weights can only grow");
+        }
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        String display = key.trim();
+        String normalized = normalize(display);
+        Entry previous = entries.get(normalized);
+        Entry entry = previous != null
+                ? new Entry(previous.key, normalized, previous.weight + weight)
+                : new Entry(display, normalized, weight);
+        entries.put(normalized, entry);
+
+        Node node = root;
+        node.offer(entry, capacity);
+        for (int i = 0; i < normalized.length(); i++) {
+            node = node.children.computeIfAbsent(normalized.charAt(i), c -> new Node());
+            node.offer(entry, capacity);
+        }
+    }
+
+    /**
+     * Up to limit keys starting with the prefix (ignoring case), highest weight first
+     */
+    public List<String> top(String prefix, int limit) {
+        Node node = root;
+        String normalized = prefix != null ? normalize(prefix.trim()) : "";
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        List<String> keys = new ArrayList<>();
+        if (node == null) {
+            return keys;
+        }
+        Entry[] best = node.top;
+        for (int i = 0; i < best.length && i < limit; i++) {
+            keys.add(best[i].key);
+        }
+        return keys;
+    }
+
+    /**
+     * All keys, highest weight first
+     */
+    public List<String> keys() {
+        List<Entry> all = new ArrayList<>(entries.values());
+        all.sort(RANKING);
+        List<String> keys = new ArrayList<>(all.size());
+        all.forEach(entry -> keys.add(entry.key));
+        return keys;
+    }
+
+    public boolean contains(String key) {
+        return key != null && entries.containsKey(normalize(key.trim()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static String normalize(String key) {
+        return key.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile Entry[] top = new Entry[0];
+
+        // Put the entry (new or with a higher weight) into this node's ranking
+        void offer(Entry entry, int capacity) {
+            List<Entry> ranked = new ArrayList<>(top.length + 1);
+            for (Entry current : top) {
+                if (!current.normalized.equals(entry.normalized)) {
+                    ranked.add(current);
+                }
+            }
+            ranked.add(entry);
+            ranked.sort(RANKING);
+            if (ranked.size() > capacity) {
+                ranked = ranked.subList(0, capacity);
+            }
+            top = ranked.toArray(new Entry[0]);
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String normalized;
+        private final long weight;
+
+        Entry(String key, String normalized, long weight) {
+            this.key = key;
+            this.normalized = normalized;
+            this.weight = weight;
+        }
+    }
+}
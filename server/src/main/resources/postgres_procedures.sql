@@ -1,6 +1,8 @@
 -- Advanced PostgreSQL features for Flight Reservation System
 -- Run this manually after the application starts (optional)
 
+-- The HELD seat status is added on startup by schema-postgresql.sql
+
 -- Views for common queries
 CREATE OR REPLACE VIEW available_seats_view AS
 SELECT 
@@ -22,7 +24,8 @@ SELECT
     f.total_seats,
     COUNT(CASE WHEN s.status = 'AVAILABLE' THEN 1 END) as available_seats,
     COUNT(CASE WHEN s.status = 'BOOKED' THEN 1 END) as booked_seats,
-    COUNT(CASE WHEN s.status = 'BLOCKED' THEN 1 END) as blocked_seats
+    COUNT(CASE WHEN s.status = 'BLOCKED' THEN 1 END) as blocked_seats,
+    COUNT(CASE WHEN s.status = 'HELD' THEN 1 END) as held_seats
 FROM flights f
 LEFT JOIN seats s ON f.id = s.flight_id
 GROUP BY f.id, f.flight_number, f.airline, f.origin, f.destination, f.departure_time, f.total_seats;
@@ -51,6 +54,38 @@ CREATE TRIGGER update_flight_seats_on_seat_change
     AFTER INSERT OR UPDATE OR DELETE ON seats
     FOR EACH ROW EXECUTE FUNCTION update_flight_available_seats();
 
+-- Seat row/column: ordering and position filters use the persisted columns instead of parsing seat numbers.
+-- Hibernate adds seat_row / seat_column and the index; this is for databases managed by hand.
+ALTER TABLE seats ADD COLUMN IF NOT EXISTS seat_row INTEGER;
+ALTER TABLE seats ADD COLUMN IF NOT EXISTS seat_column VARCHAR(3);
+CREATE INDEX IF NOT EXISTS idx_seats_flight_row_column ON seats (flight_id, seat_row, seat_column);
+
+-- Backfill of seats created before seat_row / seat_column existed, in id ranges of 5000 with a commit
+-- after each range (the application runs the same migration on startup, see SeatCoordinateBackfill)
+DO $$
+DECLARE
+    v_from BIGINT;
+    v_max BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO v_from, v_max FROM seats WHERE seat_row IS NULL;
+    WHILE v_from IS NOT NULL AND v_from <= v_max LOOP
+        UPDATE seats
+        SET seat_row = CAST(substring(seat_number FROM '^[0-9]+') AS INTEGER),
+            seat_column = substring(seat_number FROM '[A-Z]+$'),
+            seat_position = COALESCE(seat_position, CASE
+                WHEN seat_number ~ '[AF]$' THEN 'WINDOW'
+                WHEN seat_number ~ '[CD]$' THEN 'AISLE'
+                ELSE 'MIDDLE'
+            END)
+        WHERE id BETWEEN v_from AND v_from + 4999
+            AND seat_row IS NULL
+            AND seat_number ~ '^[0-9]+[A-Z]{1,3}$';
+        COMMIT;
+        v_from := v_from + 5000;
+    END LOOP;
+END;
+$$;
+
 -- Function to get seat map for a flight
 CREATE OR REPLACE FUNCTION get_seat_map(p_flight_id BIGINT)
 RETURNS TABLE(
@@ -67,18 +102,12 @@ BEGIN
         s.seat_number,
         s.seat_class,
         s.status,
-        CASE 
-            WHEN s.seat_number ~ '[AF]$' THEN 'Window'::VARCHAR(10)
-            WHEN s.seat_number ~ '[CD]$' THEN 'Aisle'::VARCHAR(10)
-            ELSE 'Middle'::VARCHAR(10)
-        END as seat_type,
+        INITCAP(COALESCE(s.seat_position, 'MIDDLE'))::VARCHAR(10) as seat_type,
         s.reservation_id,
-        CAST(REGEXP_REPLACE(s.seat_number, '[A-Z]', '', 'g') AS INTEGER) as row_number
+        s.seat_row as row_number
     FROM seats s
     WHERE s.flight_id = p_flight_id
-    ORDER BY 
-        CAST(REGEXP_REPLACE(s.seat_number, '[A-Z]', '', 'g') AS INTEGER),
-        RIGHT(s.seat_number, 1);
+    ORDER BY s.seat_row, s.seat_column;
 END;
 $$ LANGUAGE plpgsql;
 
@@ -94,38 +123,30 @@ RETURNS TABLE(
     seat_type VARCHAR(10)
 ) AS $$
 DECLARE
-    preference_order INTEGER;
+    preferred_position VARCHAR(10);
 BEGIN
-    -- Set preference order
-    preference_order := CASE 
-        WHEN LOWER(p_preference) = 'window' THEN 1
-        WHEN LOWER(p_preference) = 'aisle' THEN 2
-        ELSE 3 -- middle
+    -- Set preferred position
+    preferred_position := CASE 
+        WHEN LOWER(p_preference) = 'window' THEN 'WINDOW'
+        WHEN LOWER(p_preference) = 'aisle' THEN 'AISLE'
+        ELSE 'MIDDLE'
     END;
 
     RETURN QUERY
     SELECT 
         s.seat_number,
         s.seat_class,
-        CASE 
-            WHEN s.seat_number ~ '[AF]$' THEN 'Window'::VARCHAR(10)
-            WHEN s.seat_number ~ '[CD]$' THEN 'Aisle'::VARCHAR(10)
-            ELSE 'Middle'::VARCHAR(10)
-        END as seat_type
+        INITCAP(COALESCE(s.seat_position, 'MIDDLE'))::VARCHAR(10) as seat_type
     FROM seats s
     WHERE s.flight_id = p_flight_id 
         AND s.status = 'AVAILABLE'
         AND (p_seat_class IS NULL OR s.seat_class = p_seat_class)
     ORDER BY 
-        -- Preference order
-        CASE 
-            WHEN s.seat_number ~ '[AF]$' THEN 1  -- Window
-            WHEN s.seat_number ~ '[CD]$' THEN 2  -- Aisle
-            ELSE 3                               -- Middle
-        END = preference_order DESC,
+        -- Preferred position first
+        COALESCE(s.seat_position, 'MIDDLE') = preferred_position DESC,
         s.seat_class::TEXT,
-        CAST(REGEXP_REPLACE(s.seat_number, '[A-Z]', '', 'g') AS INTEGER),
-        RIGHT(s.seat_number, 1);
+        s.seat_row,
+        s.seat_column;
 END;
 $$ LANGUAGE plpgsql;
 
@@ -0,0 +1,24 @@
+-- Schema changes Hibernate's ddl-auto=update cannot make. Runs on every startup after Hibernate has
+-- updated the schema (spring.jpa.defer-datasource-initialization), so every statement must be idempotent.
+-- Statements run one at a time in autocommit mode; do not use dollar-quoted blocks here.
+
+-- Seat holds: Hibernate creates seat_status with all values on a new database but never adds values to an
+-- existing type
+ALTER TYPE seat_status ADD VALUE IF NOT EXISTS 'HELD';
+
+-- Waitlist: Hibernate creates the status check constraint with the values known at the time and never
+-- updates it, so a database created before EXPIRED was added would reject expired promotions
+ALTER TABLE waitlist_entries DROP CONSTRAINT IF EXISTS waitlist_entries_status_check;
+
+-- Waitlist: keeps the queue load of a flight (WAITING entries in priority order) small once most entries
+-- are promoted or cancelled
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_waitlist_waiting_queue
+    ON waitlist_entries (flight_id, seat_class, priority DESC, requested_at, id) WHERE status = 'WAITING';
+
+-- Flight search: covers FlightRepository.findAvailableFlights, with available_seats included so the seats
+-- filter is answered from the index. Replaces idx_flights_route_departure, which earlier versions had
+-- Hibernate create without the included column. A build interrupted halfway leaves an INVALID index that
+-- IF NOT EXISTS skips; drop it by hand and restart.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_flights_route_departure_seats
+    ON flights (origin, destination, departure_time) INCLUDE (available_seats);
+DROP INDEX CONCURRENTLY IF EXISTS idx_flights_route_departure;
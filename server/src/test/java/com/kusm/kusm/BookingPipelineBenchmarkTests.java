@@ -0,0 +1,155 @@
+package com.kusm.kusm;
+
+import static com.kusm.kusm.ReservationFixtures.passenger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.BookingPipeline;
+import com.kusm.service.BookingPipeline.ShardStatistics;
+import com.kusm.service.BookingRetryPolicy;
+import com.kusm.service.FlightService;
+import com.kusm.service.ReservationService;
+import com.kusm.service.SeatInventory;
+import com.kusm.service.SeatService;
+
+/**
+ * Books the same load through the transactional path and through the sharded pipeline. Both must sell
+ * every seat exactly once; the printed throughput is the comparison.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "booking.pipeline.enabled=true")
+class BookingPipelineBenchmarkTests {
+
+    private static final int THREADS = 16;
+    private static final int FLIGHTS = 4;
+    private static final int SEATS_PER_FLIGHT = 60;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private BookingRetryPolicy bookingRetryPolicy;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Test
+    void pipelineSellsEverySeatOnceAndBatchesBursts() throws Exception {
+        run("transactional", (flightId, reservation) -> bookingRetryPolicy.execute("createReservation",
+                () -> reservationService.createReservation(reservation.get(), flightId)));
+        run("pipeline", (flightId, reservation) -> bookingPipeline.book(flightId, "createReservation",
+                () -> reservationService.createReservation(reservation.get(), flightId)).join());
+
+        long batches = bookingPipeline.getStatistics().stream().mapToLong(ShardStatistics::getBatches).sum();
+        long batched = bookingPipeline.getStatistics().stream().mapToLong(ShardStatistics::getBatchedCommands).sum();
+        System.out.printf("Pipeline: %d batches, %d commands batched%n", batches, batched);
+    }
+
+    private void run(String mode, BiFunction<Long, Supplier<Reservation>, Reservation> book)
+            throws Exception {
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < FLIGHTS; i++) {
+            Flight flight = flightService.saveFlight(new Flight("BP" + UUID.randomUUID().toString().substring(0, 6),
+                    "KUSM", "DEL", "BLR", LocalDateTime.now().plusDays(20), LocalDateTime.now().plusDays(20).plusHours(2),
+                    new BigDecimal("100.00"), SEATS_PER_FLIGHT));
+            seatService.initializeSeatsForFlight(flight);
+            flights.add(flight);
+        }
+
+        Set<Long> bookedSeatIds = ConcurrentHashMap.newKeySet();
+        List<Reservation> reservations = new CopyOnWriteArrayList<>();
+        AtomicInteger bookings = new AtomicInteger();
+        AtomicInteger doubleSold = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(FLIGHTS * SEATS_PER_FLIGHT);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                int n;
+                while ((n = remaining.getAndDecrement()) > 0) {
+                    Flight flight = flights.get(n % FLIGHTS);
+                    Reservation reservation = book.apply(flight.getId(), () -> passenger("Pipeline " + mode));
+                    reservations.add(reservation);
+                    bookings.incrementAndGet();
+                    reservation.getSeats().forEach(seat -> {
+                        if (!bookedSeatIds.add(seat.getId())) {
+                            doubleSold.incrementAndGet();
+                        }
+                    });
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), mode + " run did not finish in time");
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        System.out.printf("%s: %d threads, %d flights, %d bookings, %.0f bookings/sec%n",
+                mode, THREADS, FLIGHTS, bookings.get(), bookings.get() / seconds);
+
+        assertEquals(0, doubleSold.get(), "A seat was handed out twice");
+        assertEquals(FLIGHTS * SEATS_PER_FLIGHT, bookings.get());
+        for (Flight flight : flights) {
+            assertEquals(SEATS_PER_FLIGHT, seatRepository.countByFlightIdAndStatus(flight.getId(), SeatStatus.BOOKED));
+        }
+
+        for (Flight flight : flights) {
+            seatRepository.deleteAll(seatRepository.findByFlightId(flight.getId()));
+        }
+        reservationRepository.deleteAll(reservations);
+        for (Flight flight : flights) {
+            flightRepository.deleteById(flight.getId());
+            seatInventory.invalidate(flight.getId());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kusm.kusm;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Bulk flights for the search tests, inserted with one generate_series statement and removed by their
+ * flight number prefix
+ */
+final class FlightFixtures {
+
+    private FlightFixtures() {}
+
+    /**
+     * A flight number prefix no other test run uses
+     */
+    static String newPrefix(String tag) {
+        return tag + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    }
+
+    /**
+     * Insert count flights between the airports, routes and departure minutes spread evenly over the next
+     * days days (starting tomorrow); every tenth flight is sold out
+     */
+    static void insertFlights(JdbcTemplate jdbcTemplate, String prefix, int count, String[] airports, int days) {
+        String codes = Arrays.stream(airports).map(code -> "'" + code + "'").collect(Collectors.joining(","));
+        int n = airports.length;
+        jdbcTemplate.update(
+                "INSERT INTO flights (flight_number, airline, origin, destination, departure_time, arrival_time, "
+                + "price, available_seats, total_seats) "
+                + "SELECT CAST(? AS text) || g, 'KUSM', (ARRAY[" + codes + "])[1 + g % " + n + "], "
+                + "(ARRAY[" + codes + "])[1 + (g % " + n + " + 1 + (g / " + n + ") % " + (n - 1) + ") % " + n + "], "
+                + "dep, dep + interval '2 hours', 100.00, CASE WHEN g % 10 = 0 THEN 0 ELSE 180 END, 180 "
+                + "FROM (SELECT g, CAST(current_date AS timestamp) + (1 + g % " + days + ") * interval '1 day' "
+                + "+ (g % 1440) * interval '1 minute' AS dep FROM generate_series(1, ?) AS g) AS generated",
+                prefix, count);
+    }
+
+    static void deleteFlights(JdbcTemplate jdbcTemplate, String prefix) {
+        jdbcTemplate.update("DELETE FROM flights WHERE flight_number LIKE ?", prefix + "%");
+    }
+}
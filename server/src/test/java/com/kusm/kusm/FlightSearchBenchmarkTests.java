@@ -0,0 +1,102 @@
+package com.kusm.kusm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.kusm.model.Flight;
+import com.kusm.repository.FlightRepository;
+import com.kusm.service.FlightSearchIndex;
+
+/**
+ * p99 search latency of the in-memory route/date index against the repository query for growing
+ * flight tables. Both paths must return the same flights. Seeds up to a million flights, so it only runs
+ * with the benchmark profile (mvn test -Pbenchmark).
+ */
+@Tag("benchmark")
+@SpringBootTest
+class FlightSearchBenchmarkTests {
+
+    private static final int[] TABLE_SIZES = {10_000, 100_000, 1_000_000};
+    private static final String[] AIRPORTS = {"DEL", "BOM", "BLR", "HYD", "MAA", "CCU", "GOI", "PNQ", "AMD", "COK",
+            "JAI", "LKO", "IXC", "GAU", "PAT", "BBI", "NAG", "IDR", "VNS", "SXR"};
+    private static final int DAYS = 180;
+    private static final int INDEX_SEARCHES = 20_000;
+    private static final int REPOSITORY_SEARCHES = 200;
+
+    @Autowired
+    private FlightSearchIndex flightSearchIndex;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void indexedSearchP99() {
+        for (int tableSize : TABLE_SIZES) {
+            String prefix = FlightFixtures.newPrefix("SB");
+            FlightFixtures.insertFlights(jdbcTemplate, prefix, tableSize, AIRPORTS, DAYS);
+            try {
+                flightSearchIndex.rebuild();
+                Random random = new Random(tableSize);
+
+                long[] indexNanos = new long[INDEX_SEARCHES];
+                for (int i = 0; i < INDEX_SEARCHES; i++) {
+                    String[] route = randomRoute(random);
+                    LocalDate date = LocalDate.now().plusDays(1 + random.nextInt(DAYS));
+                    long startedAt = System.nanoTime();
+                    flightSearchIndex.search(route[0], route[1], date);
+                    indexNanos[i] = System.nanoTime() - startedAt;
+                }
+
+                long[] repositoryNanos = new long[REPOSITORY_SEARCHES];
+                for (int i = 0; i < REPOSITORY_SEARCHES; i++) {
+                    String[] route = randomRoute(random);
+                    LocalDateTime date = LocalDate.now().plusDays(1 + random.nextInt(DAYS)).atStartOfDay();
+                    long startedAt = System.nanoTime();
+                    List<Flight> fromDatabase = flightRepository.findAvailableFlights(route[0], route[1], date,
+                            date.plusDays(1));
+                    repositoryNanos[i] = System.nanoTime() - startedAt;
+
+                    List<Flight> fromIndex = flightSearchIndex.search(route[0], route[1], date.toLocalDate());
+                    assertEquals(ids(fromDatabase), ids(fromIndex), "Index and repository disagree");
+                }
+
+                System.out.printf("%d flights: index p99 %.1f us, repository p99 %.2f ms%n", tableSize,
+                        percentile(indexNanos, 0.99) / 1_000.0, percentile(repositoryNanos, 0.99) / 1_000_000.0);
+            } finally {
+                FlightFixtures.deleteFlights(jdbcTemplate, prefix);
+            }
+        }
+        flightSearchIndex.rebuild();
+    }
+
+    private static String[] randomRoute(Random random) {
+        int origin = random.nextInt(AIRPORTS.length);
+        int destination = (origin + 1 + random.nextInt(AIRPORTS.length - 1)) % AIRPORTS.length;
+        return new String[] {AIRPORTS[origin], AIRPORTS[destination]};
+    }
+
+    private static List<Long> ids(List<Flight> flights) {
+        return flights.stream().map(Flight::getId).sorted().collect(Collectors.toList());
+    }
+
+    private static long percentile(long[] samples, double percentile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.kusm.kusm;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.kusm.repository.FlightRepository;
+
+/**
+ * The route/date search must be answered through idx_flights_route_departure_seats, not a sequential scan
+ * of the flights table. Seeds enough flights for the planner to prefer the index, then explains the SQL
+ * Hibernate generates for FlightRepository.findAvailableFlights with the same parameters.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.kusm.kusm.FlightSearchPlanTests$CapturingInspector")
+class FlightSearchPlanTests {
+
+    private static final int FLIGHTS = 200_000;
+    private static final String[] AIRPORTS = {"DEL", "BOM", "BLR", "HYD", "MAA", "CCU", "GOI", "PNQ", "AMD", "COK"};
+    private static final int DAYS = 365;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void routeDateSearchUsesTheIndex() {
+        String prefix = FlightFixtures.newPrefix("SP");
+        FlightFixtures.insertFlights(jdbcTemplate, prefix, FLIGHTS, AIRPORTS, DAYS);
+        try {
+            jdbcTemplate.execute("ANALYZE flights");
+            LocalDateTime from = LocalDate.now().plusDays(10).atStartOfDay();
+            LocalDateTime to = from.plusDays(1);
+
+            CapturingInspector.searchSql = null;
+            flightRepository.findAvailableFlights("DEL", "BOM", from, to);
+            String sql = CapturingInspector.searchSql;
+            assertNotNull(sql, "The repository search issued no query on flights");
+
+            // Bind parameters in the order of the JPQL query
+            List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, "DEL", "BOM", from, to);
+            String plan = String.join("\n", lines);
+
+            assertFalse(plan.contains("Seq Scan on flights"), "Search fell back to a sequential scan:\n" + plan);
+            assertTrue(plan.contains("idx_flights_route_departure_seats"),
+                    "Search does not use the route/date index:\n" + plan);
+        } finally {
+            FlightFixtures.deleteFlights(jdbcTemplate, prefix);
+        }
+    }
+
+    /**
+     * Keeps the last SQL statement that reads the flights table with the search predicate
+     */
+    public static class CapturingInspector implements StatementInspector {
+        static volatile String searchSql;
+
+        @Override
+        public String inspect(String sql) {
+            String normalized = sql.toLowerCase();
+            if (normalized.contains("from flights") && normalized.replace(" ", "").contains("available_seats>0")) {
+                searchSql = sql;
+            }
+            return sql;
+        }
+    }
+}
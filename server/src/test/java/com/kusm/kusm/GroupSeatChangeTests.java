@@ -0,0 +1,113 @@
+package com.kusm.kusm;
+
+import static com.kusm.kusm.ReservationFixtures.passenger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.FlightService;
+import com.kusm.service.ReservationService;
+import com.kusm.service.SeatService;
+
+/**
+ * Changing one seat of a group reservation moves only that seat: the rest of the group keeps its seats
+ * and the flight's available count does not move. Cancelling the group frees its seats exactly once.
+ */
+@SpringBootTest
+class GroupSeatChangeTests {
+
+    private static final int TOTAL_SEATS = 60;
+    private static final int GROUP_SIZE = 3;
+    private static final String CARD = "4111111111111111";
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Test
+    void changingOneSeatOfAGroupKeepsTheOthers() {
+        Flight flight = flightService.saveFlight(new Flight("GS" + UUID.randomUUID().toString().substring(0, 6),
+                "KUSM", "DEL", "BOM", LocalDateTime.now().plusDays(30), LocalDateTime.now().plusDays(30).plusHours(2),
+                new BigDecimal("100.00"), TOTAL_SEATS));
+        Long flightId = flight.getId();
+        seatService.initializeSeatsForFlight(flight);
+        Reservation group = null;
+        try {
+            group = reservationService.createGroupReservationWithPayment(passenger("Group Test"), flightId,
+                    GROUP_SIZE, true, CARD, "Group Test");
+            String reference = group.getBookingReference();
+            List<String> before = seatNumbers(group.getId());
+            assertEquals(GROUP_SIZE, before.size());
+            int availableBefore = availableSeats(flightId);
+
+            // Without the seat to give up the change is ambiguous and must not touch the group
+            assertThrows(RuntimeException.class, () -> reservationService.changeSeat(reference, "Z99"));
+            assertEquals(before, seatNumbers(group.getId()));
+
+            String oldSeat = before.get(0);
+            String newSeat = seatService.getAvailableSeats(flightId).get(0).getSeatNumber();
+            assertTrue(reservationService.changeSeat(reference, oldSeat, newSeat));
+
+            List<String> after = seatNumbers(group.getId());
+            assertEquals(GROUP_SIZE, after.size(), "The group lost seats on a seat change");
+            assertTrue(after.contains(newSeat));
+            assertFalse(after.contains(oldSeat));
+            assertTrue(after.containsAll(before.subList(1, GROUP_SIZE)));
+            assertEquals(availableBefore, availableSeats(flightId));
+
+            // Cancelling frees the group's seats once; a second cancel changes nothing
+            assertTrue(reservationService.cancelReservation(reference));
+            assertEquals(availableBefore + GROUP_SIZE, availableSeats(flightId));
+            assertThrows(IllegalStateException.class, () -> reservationService.cancelReservation(reference));
+            assertEquals(availableBefore + GROUP_SIZE, availableSeats(flightId));
+        } finally {
+            seatRepository.deleteAll(seatRepository.findByFlightId(flightId));
+            if (group != null) {
+                reservationRepository.deleteById(group.getId());
+            }
+            flightRepository.deleteById(flightId);
+        }
+    }
+
+    private List<String> seatNumbers(Long reservationId) {
+        return seatService.getSeatsByReservationId(reservationId).stream()
+                .map(Seat::getSeatNumber)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private int availableSeats(Long flightId) {
+        return flightRepository.findById(flightId).orElseThrow().getAvailableSeats();
+    }
+}
@@ -0,0 +1,37 @@
+package com.kusm.kusm;
+
+import java.util.UUID;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+
+/**
+ * Reservations for the booking tests, with a unique booking reference and placeholder contact details
+ */
+final class ReservationFixtures {
+
+    private ReservationFixtures() {}
+
+    /**
+     * A confirmed reservation on the flight, ready to be saved and given seats directly
+     */
+    static Reservation confirmedReservation(Flight flight, String passengerName) {
+        Reservation reservation = passenger(passengerName);
+        reservation.setFlight(flight);
+        reservation.setBookingReference("TS" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        reservation.setTotalAmount(flight.getPrice());
+        reservation.setStatus(Reservation.BookingStatus.CONFIRMED);
+        return reservation;
+    }
+
+    /**
+     * Passenger details only; flight, reference and status are filled in by the booking service
+     */
+    static Reservation passenger(String passengerName) {
+        Reservation reservation = new Reservation();
+        reservation.setPassengerName(passengerName);
+        reservation.setPassengerEmail("booking@test.kusm");
+        reservation.setPassengerPhone("+10000000000");
+        return reservation;
+    }
+}
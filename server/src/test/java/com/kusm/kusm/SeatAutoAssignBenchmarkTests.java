@@ -0,0 +1,95 @@
+package com.kusm.kusm;
+
+import static com.kusm.kusm.ReservationFixtures.confirmedReservation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.FlightService;
+import com.kusm.service.SeatInventory;
+import com.kusm.service.SeatService;
+
+/**
+ * Auto-assignment latency for growing cabins. Picking a seat reads the head of a
+ * (class, position) free list, so the pick time should stay flat as the cabin grows.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SeatAutoAssignBenchmarkTests {
+
+    private static final int[] CABIN_SIZES = {150, 600, 2400};
+    private static final int ASSIGNMENTS = 30;
+    private static final int PICKS = 200_000;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Test
+    void assignmentLatencyStaysFlat() {
+        for (int cabinSize : CABIN_SIZES) {
+            Flight flight = flightService.saveFlight(new Flight("AA" + UUID.randomUUID().toString().substring(0, 6),
+                    "KUSM", "DEL", "HYD", LocalDateTime.now().plusDays(45), LocalDateTime.now().plusDays(45).plusHours(2),
+                    new BigDecimal("100.00"), cabinSize));
+            List<Reservation> reservations = new ArrayList<>();
+
+            long assignNanos = 0;
+            for (int i = 0; i < ASSIGNMENTS; i++) {
+                Reservation reservation = reservationRepository.save(confirmedReservation(flight, "Benchmark Test"));
+                reservations.add(reservation);
+                long startedAt = System.nanoTime();
+                Seat seat = seatService.autoAssignSeat(flight.getId(), reservation, SeatClass.ECONOMY);
+                assignNanos += System.nanoTime() - startedAt;
+                assertEquals(SeatClass.ECONOMY, seat.getSeatClass());
+                assertTrue(seat.isWindow(), "Window seats are handed out first");
+            }
+
+            SeatInventory.FlightInventory inventory = seatInventory.get(flight.getId());
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < PICKS; i++) {
+                assertNotNull(inventory.nextAvailable(SeatClass.ECONOMY, null));
+            }
+            long pickNanos = System.nanoTime() - startedAt;
+
+            System.out.printf("%d seats: auto-assign %.3f ms/seat, free-list pick %.0f ns/pick%n", cabinSize,
+                    assignNanos / 1_000_000.0 / ASSIGNMENTS, (double) pickNanos / PICKS);
+
+            seatRepository.deleteAll(seatRepository.findByFlightId(flight.getId()));
+            reservationRepository.deleteAll(reservations);
+            flightRepository.deleteById(flight.getId());
+            seatInventory.invalidate(flight.getId());
+        }
+    }
+}
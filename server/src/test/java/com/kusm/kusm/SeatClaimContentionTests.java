@@ -0,0 +1,119 @@
+package com.kusm.kusm;
+
+import static com.kusm.kusm.ReservationFixtures.confirmedReservation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatStatus;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.FlightService;
+import com.kusm.service.SeatService;
+
+/**
+ * N threads race for the seats of a single flight. Every claim must land on a distinct seat
+ * and the number of booked rows must match the number of successful claims.
+ */
+@SpringBootTest
+class SeatClaimContentionTests {
+
+    private static final int THREADS = 16;
+    private static final int TOTAL_SEATS = 120;
+    // More attempts than seats so the last claims are guaranteed to contend and fail
+    private static final int ATTEMPTS = TOTAL_SEATS + 40;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Test
+    void concurrentClaimsNeverSellASeatTwice() throws Exception {
+        Flight flight = flightService.saveFlight(new Flight("CT" + UUID.randomUUID().toString().substring(0, 6),
+                "KUSM", "DEL", "BOM", LocalDateTime.now().plusDays(30), LocalDateTime.now().plusDays(30).plusHours(2),
+                new BigDecimal("100.00"), TOTAL_SEATS));
+        Long flightId = flight.getId();
+        seatService.initializeSeatsForFlight(flight);
+
+        Set<Long> claimedSeatIds = ConcurrentHashMap.newKeySet();
+        List<Reservation> reservations = new CopyOnWriteArrayList<>();
+        AtomicInteger claims = new AtomicInteger();
+        AtomicInteger doubleSold = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(ATTEMPTS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                while (remaining.getAndDecrement() > 0) {
+                    Reservation reservation = reservationRepository.save(confirmedReservation(flight, "Contention Test"));
+                    reservations.add(reservation);
+                    try {
+                        Seat seat = seatService.autoAssignSeat(flightId, reservation, null);
+                        claims.incrementAndGet();
+                        if (!claimedSeatIds.add(seat.getId())) {
+                            doubleSold.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        soldOut.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Contention run did not finish in time");
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        System.out.printf("Seat claim contention: %d threads, %d claims, %d sold out, %.0f claims/sec%n",
+                THREADS, claims.get(), soldOut.get(), claims.get() / seconds);
+
+        assertEquals(0, doubleSold.get(), "A seat was handed out twice");
+        assertEquals(TOTAL_SEATS, claims.get());
+        assertEquals(ATTEMPTS - TOTAL_SEATS, soldOut.get());
+        assertEquals(TOTAL_SEATS, seatRepository.countByFlightIdAndStatus(flightId, SeatStatus.BOOKED));
+
+        List<Seat> seats = seatRepository.findByFlightId(flightId);
+        assertEquals(TOTAL_SEATS, seats.stream().map(Seat::getId).filter(claimedSeatIds::contains).count());
+
+        seatRepository.deleteAll(seats);
+        reservationRepository.deleteAll(reservations);
+        flightRepository.deleteById(flightId);
+    }
+}
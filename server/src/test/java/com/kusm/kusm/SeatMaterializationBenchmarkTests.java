@@ -0,0 +1,96 @@
+package com.kusm.kusm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kusm.model.Flight;
+import com.kusm.model.Seat;
+import com.kusm.model.Seat.SeatClass;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.SeatBatchRepository;
+import com.kusm.repository.SeatRepository;
+
+/**
+ * Compares seats/sec of the per-entity saveAll path with the multi-row batch insert
+ * for 150, 300 and 600 seat aircraft.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SeatMaterializationBenchmarkTests {
+
+    private static final int[] CABIN_SIZES = {150, 300, 600};
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+
+    @Test
+    void compareSeatsPerSecond() {
+        for (int cabinSize : CABIN_SIZES) {
+            long saveAllNanos = 0;
+            long batchNanos = 0;
+
+            for (int round = 0; round < ROUNDS; round++) {
+                Flight saveAllFlight = newFlight(cabinSize);
+                long startedAt = System.nanoTime();
+                seatRepository.saveAll(generateSeats(saveAllFlight));
+                saveAllNanos += System.nanoTime() - startedAt;
+
+                Flight batchFlight = newFlight(cabinSize);
+                startedAt = System.nanoTime();
+                List<Seat> inserted = seatBatchRepository.insertSeats(batchFlight.getId(), generateSeats(batchFlight));
+                batchNanos += System.nanoTime() - startedAt;
+
+                assertEquals(cabinSize, seatRepository.findByFlightId(saveAllFlight.getId()).size());
+                assertEquals(cabinSize, seatRepository.findByFlightId(batchFlight.getId()).size());
+                assertEquals(cabinSize, inserted.stream().filter(s -> s.getId() != null).count());
+
+                cleanUp(saveAllFlight);
+                cleanUp(batchFlight);
+            }
+
+            System.out.printf("%d seats: saveAll %.0f seats/sec, batch insert %.0f seats/sec%n", cabinSize,
+                    seatsPerSecond(cabinSize, saveAllNanos), seatsPerSecond(cabinSize, batchNanos));
+        }
+    }
+
+    private double seatsPerSecond(int cabinSize, long nanos) {
+        return (double) cabinSize * ROUNDS / (nanos / 1_000_000_000.0);
+    }
+
+    private Flight newFlight(int totalSeats) {
+        LocalDateTime departure = LocalDateTime.now().plusDays(60);
+        return flightRepository.save(new Flight("BM" + UUID.randomUUID().toString().substring(0, 6), "KUSM",
+                "DEL", "BLR", departure, departure.plusHours(3), new BigDecimal("100.00"), totalSeats));
+    }
+
+    private List<Seat> generateSeats(Flight flight) {
+        String[] seatLetters = {"A", "B", "C", "D", "E", "F"};
+        List<Seat> seats = new ArrayList<>(flight.getTotalSeats());
+        for (int i = 0; i < flight.getTotalSeats(); i++) {
+            seats.add(new Seat((i / 6 + 1) + seatLetters[i % 6], SeatClass.ECONOMY, flight));
+        }
+        return seats;
+    }
+
+    private void cleanUp(Flight flight) {
+        seatRepository.deleteAll(seatRepository.findByFlightId(flight.getId()));
+        flightRepository.deleteById(flight.getId());
+    }
+}
@@ -0,0 +1,127 @@
+package com.kusm.kusm;
+
+import static com.kusm.kusm.ReservationFixtures.confirmedReservation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kusm.dto.flightDTO.SeatDTO;
+import com.kusm.model.Flight;
+import com.kusm.model.Reservation;
+import com.kusm.repository.FlightRepository;
+import com.kusm.repository.ReservationRepository;
+import com.kusm.repository.SeatRepository;
+import com.kusm.service.FlightService;
+import com.kusm.service.SeatInventory;
+import com.kusm.service.SeatService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Statements and allocated bytes for reading all seats of a flight: entity hydration with lazy
+ * reservation lookups (the old read path) against the single-join SeatDTO projection.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SeatReadProjectionBenchmarkTests {
+
+    private static final int CABIN_SIZE = 180;
+    private static final int BOOKED_SEATS = 20;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void projectionReadsSeatsInOneStatement() {
+        Flight flight = flightService.saveFlight(new Flight("AA" + UUID.randomUUID().toString().substring(0, 6),
+                "KUSM", "DEL", "BOM", LocalDateTime.now().plusDays(50), LocalDateTime.now().plusDays(50).plusHours(2),
+                new BigDecimal("100.00"), CABIN_SIZE));
+        List<Reservation> reservations = new ArrayList<>();
+        List<SeatDTO> available = seatService.getAvailableSeats(flight.getId());
+        for (int i = 0; i < BOOKED_SEATS; i++) {
+            Reservation reservation = reservationRepository.save(confirmedReservation(flight, "Projection Test"));
+            reservations.add(reservation);
+            seatService.assignSeat(flight.getId(), available.get(i).getSeatNumber(), reservation);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Before: entities plus one reservation select per booked seat while mapping
+        Measurement entities = measure(statistics, () -> transactionTemplate.execute(status -> {
+            List<SeatDTO> result = new ArrayList<>();
+            seatRepository.findByFlightId(flight.getId()).forEach(seat -> result.add(new SeatDTO(seat)));
+            return result;
+        }));
+        // After: one select of the needed columns joined with the booking reference
+        Measurement projection = measure(statistics, () -> seatService.getAllSeatsForFlight(flight.getId()));
+
+        assertEquals(1, projection.statements);
+        assertTrue(entities.statements > projection.statements,
+                "Entity read took " + entities.statements + " statements");
+        assertTrue(projection.allocatedBytes < entities.allocatedBytes, "Projection allocated "
+                + projection.allocatedBytes + " bytes, entity read " + entities.allocatedBytes);
+        assertEquals(BOOKED_SEATS, projection.seats.stream().filter(seat -> seat.getReservationReference() != null).count());
+        assertEquals(entities.seats.size(), projection.seats.size());
+
+        seatRepository.deleteAll(seatRepository.findByFlightId(flight.getId()));
+        reservationRepository.deleteAll(reservations);
+        flightRepository.deleteById(flight.getId());
+        seatInventory.invalidate(flight.getId());
+    }
+
+    private Measurement measure(Statistics statistics, Supplier<List<SeatDTO>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        statistics.clear();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        List<SeatDTO> seats = read.get();
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Measurement(seats, statistics.getPrepareStatementCount(), allocated);
+    }
+
+    private static final class Measurement {
+        private final List<SeatDTO> seats;
+        private final long statements;
+        private final long allocatedBytes;
+
+        Measurement(List<SeatDTO> seats, long statements, long allocatedBytes) {
+            this.seats = seats;
+            this.statements = statements;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}